@@ -0,0 +1,144 @@
+package org.code;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Koniec serwisu przy tysiącach narciarzy czekających przed wyciągiem: czas od otwarcia wyciągu do chwili, gdy
+// wszyscy stoją w kolejce. "bramka" - narciarze czekają na bramce wyciągu (Narciarz.wsiadzNaWyciag), a wyciąg wpisuje
+// ich do kolejki partiami, bez budzenia wątków. "warunek" - dawne czekanie na Condition: signalAll budzi wszystkie
+// wątki, a każdy sam staje w kolejce. Każde wywołanie zaczyna się od czekających już wątków (przygotowanie poza pomiarem).
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Thread)
+public class BramkaBenchmark {
+
+    @Param({"10000"})
+    int czekajacych;
+
+    @Param({"bramka", "warunek"})
+    String sposob;
+
+    @Param({"virtual", "platform"})
+    String watki;
+
+    Wyciag wyciag;
+    List<Thread> narciarze;
+    CountDownLatch wKolejce;
+    final ReentrantLock lock = new ReentrantLock();
+    final Condition koniecSerwisu = lock.newCondition();
+    boolean otwarty;
+
+    // Planista bez zegara i wybudzeń - mierzymy samo wpuszczanie do kolejki
+    static final PlanistaWyciagow BEZ_CZASU = new PlanistaWyciagow() {
+        public long teraz() {
+            return 0;
+        }
+
+        public void zaplanuj(Wyciag w, long czas) {
+        }
+
+        public void dojechal(Narciarz nar, Wyciag w) {
+        }
+
+        public void serwisRozpoczety(Wyciag w) {
+        }
+
+        public void serwisZakonczony(Wyciag w) {
+        }
+    };
+
+    @Setup(Level.Invocation)
+    public void przygotuj() throws InterruptedException {
+        Stacja dol = new Stacja("dol", "bazowa");
+        Trasa trasa = new Trasa("dol-gora", dol, new Stacja("gora", "szczyt"), 0);
+        wyciag = new Wyciag("W", trasa, 8, 10, 2, Integer.MAX_VALUE, 0, 1);
+        wyciag.start(BEZ_CZASU);
+        wyciag.oznaczOczekiwanieNaSerwis();
+        wyciag.rozpocznijSerwis();
+        otwarty = false;
+        wKolejce = new CountDownLatch(czekajacych);
+        ThreadFactory fabryka = SkiResortSimulation.fabrykaWatkowNarciarzy(watki);
+        narciarze = new ArrayList<>(czekajacych);
+        for (int i = 1; i <= czekajacych; i++) {
+            Narciarz nar = new Narciarz(i, dol, null);
+            Thread t = fabryka.newThread("bramka".equals(sposob) ? () -> czekajNaBramce(nar) : () -> czekajNaWarunek(nar));
+            t.start();
+            narciarze.add(t);
+        }
+        // Wszyscy muszą już czekać, zanim wyciąg się otworzy
+        while (czekajacy() < czekajacych) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void czekajNaBramce(Narciarz nar) {
+        try {
+            nar.wsiadzNaWyciag(wyciag);
+        } catch (InterruptedException e) {
+            // Koniec wywołania - narciarz nie dojedzie
+        }
+    }
+
+    private void czekajNaWarunek(Narciarz nar) {
+        lock.lock();
+        try {
+            while (!otwarty) {
+                koniecSerwisu.await();
+            }
+        } catch (InterruptedException e) {
+            return;
+        } finally {
+            lock.unlock();
+        }
+        wyciag.dolaczDoKolejki(nar);
+        wKolejce.countDown();
+    }
+
+    private int czekajacy() {
+        if ("bramka".equals(sposob)) return wyciag.bramka.liczbaCzekajacych();
+        lock.lock();
+        try {
+            return lock.getWaitQueueLength(koniecSerwisu);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public int otwarcie() throws InterruptedException {
+        wyciag.zakonczSerwis();
+        if ("bramka".equals(sposob)) {
+            wyciag.otworzBramke();
+        } else {
+            lock.lock();
+            try {
+                otwarty = true;
+                koniecSerwisu.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            wKolejce.await();
+        }
+        return wyciag.kolejkaOczekujacych.size();
+    }
+
+    @TearDown(Level.Invocation)
+    public void sprzatnij() throws InterruptedException {
+        for (Thread t : narciarze) {
+            t.interrupt();
+        }
+        for (Thread t : narciarze) {
+            t.join();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.code;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Współbieżne aktualizacje liczników stacji i trasy - wszystkie wątki trafiają w ten sam obiekt,
+// tak jak narciarze w stacji bazowej. atomicInteger / longAdder to same liczniki (przyjazd + odjazd) dla porównania
+// wspólnej komórki z licznikiem rozłożonym; odczytSumy pokazuje koszt odczytu LongAdder przy zapisach z innych wątków.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LicznikiBenchmark {
+
+    Stacja stacja;
+    Trasa trasa;
+    final AtomicInteger licznikAtomowy = new AtomicInteger();
+    final LongAdder licznikRozlozony = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void przygotuj() {
+        stacja = new Stacja("baza", "bazowa");
+        trasa = new Trasa("szczyt-baza", new Stacja("szczyt", "szczyt"), stacja, 5);
+    }
+
+    @Benchmark
+    public void stacja() {
+        stacja.narciarzPrzybyl(null);
+        stacja.narciarzOdszedl(null);
+    }
+
+    @Benchmark
+    public void trasa() {
+        trasa.narciarzStart();
+        trasa.narciarzKoniec();
+    }
+
+    @Benchmark
+    public void atomicInteger() {
+        licznikAtomowy.incrementAndGet();
+        licznikAtomowy.decrementAndGet();
+    }
+
+    @Benchmark
+    public void longAdder() {
+        licznikRozlozony.increment();
+        licznikRozlozony.decrement();
+    }
+
+    @Benchmark
+    @Group("odczytSumy")
+    @GroupThreads(3)
+    public void zapisStacji() {
+        stacja.narciarzPrzybyl(null);
+        stacja.narciarzOdszedl(null);
+    }
+
+    @Benchmark
+    @Group("odczytSumy")
+    @GroupThreads(1)
+    public int odczytStacji() {
+        return stacja.getLiczbaNarciarzy();
+    }
+}
@@ -0,0 +1,47 @@
+package org.code;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cała symulacja: ile przejazdów wyciągami na sekundę (czasu rzeczywistego) liczy silnik zdarzeniowy dla N narciarzy.
+// Każde wywołanie symuluje godzinę pracy stoku z domyślnym config.json, licznik przejazdów jest raportowany obok czasu.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PrzejazdyBenchmark {
+
+    @Param({"30", "1000", "10000"})
+    int narciarzy;
+
+    SkiResortSimulation.Config cfg;
+
+    // Licznik pomocniczy - JMH przelicza go na przejazdy na sekundę
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Przejazdy {
+        public long przejazdy;
+    }
+
+    @Setup(Level.Trial)
+    public void przygotuj() throws Exception {
+        cfg = SkiResortSimulation.wczytajKonfiguracje(SkiResortSimulation.KONFIGURACJA_ZASOB);
+        cfg.liczbaNarciarzy = narciarzy;
+    }
+
+    @Benchmark
+    public long godzinaStoku(Przejazdy licznik) {
+        SkiResortSimulation symulacja = new SkiResortSimulation(cfg);
+        SymulacjaZdarzeniowa des = new SymulacjaZdarzeniowa(symulacja.wyciagi, symulacja.narciarze);
+        des.uruchom(3600 * 1000L);
+        long suma = 0;
+        for (Wyciag w : symulacja.wyciagi) {
+            suma += w.getPrzejazdy();
+        }
+        licznik.przejazdy += suma;
+        return des.getLiczbaZdarzen();
+    }
+}
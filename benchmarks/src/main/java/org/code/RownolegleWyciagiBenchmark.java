@@ -0,0 +1,88 @@
+package org.code;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+// Przepustowość stoku z równoległymi wyciągami (dwa baza-szczyt i dwa baza-polowa) przy trasowaniu "najkrotsza"
+// i "kolejki". Przy najmniejszej liczbie przesiadek wszyscy wybierają pierwszy wyciąg z konfiguracji, a równoległy
+// stoi pusty; przy trasowaniu z kolejkami ruch rozkłada się na oba. Każde wywołanie to godzina stoku (silnik
+// zdarzeniowy, stałe ziarno) - liczniki zjazdów i przejazdów (suma z iteracji) to wynik, czas jest tylko dodatkiem.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class RownolegleWyciagiBenchmark {
+
+    static final String STOK = """
+            {
+              "stacje": [
+                { "name": "baza", "altitude": 1000 },
+                { "name": "polowa", "altitude": 1400 },
+                { "name": "szczyt", "altitude": 1800 }
+              ],
+              "trasy": [
+                { "name": "szczyt-baza", "duration": 5 },
+                { "name": "polowa-baza", "duration": 6 },
+                { "name": "szczyt-polowa", "duration": 4 }
+              ],
+              "wyciagi": [
+                { "name": "A1", "route": "baza-szczyt", "capacity": 8, "interval": 10, "boardingGroupSize": 2,
+                  "maintenanceTime": 600, "maintenanceDuration": 60 },
+                { "name": "A2", "route": "baza-szczyt", "capacity": 8, "interval": 10, "boardingGroupSize": 2,
+                  "maintenanceTime": 900, "maintenanceDuration": 60 },
+                { "name": "B1", "route": "baza-polowa", "capacity": 6, "interval": 6, "boardingGroupSize": 1,
+                  "maintenanceTime": 450, "maintenanceDuration": 30 },
+                { "name": "B2", "route": "baza-polowa", "capacity": 6, "interval": 6, "boardingGroupSize": 1,
+                  "maintenanceTime": 700, "maintenanceDuration": 30 },
+                { "name": "C", "route": "polowa-szczyt", "capacity": 10, "interval": 5, "boardingGroupSize": 1,
+                  "maintenanceTime": 600, "maintenanceDuration": 40 }
+              ],
+              "liczbaNarciarzy": 300,
+              "globalBoardingInterval": 2,
+              "seed": 7
+            }
+            """;
+
+    @Param({"najkrotsza", "kolejki"})
+    String trasowanie;
+
+    SkiResortSimulation.Config cfg;
+
+    // Liczniki na iterację (jedno wywołanie = godzina stoku)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Wynik {
+        public long zjazdy;
+        public long przejazdy;
+
+        @Setup(Level.Iteration)
+        public void wyzeruj() {
+            zjazdy = 0;
+            przejazdy = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void przygotuj() {
+        cfg = SkiResortSimulation.wczytajKonfiguracje(new StringReader(STOK));
+        cfg.trasowanie = trasowanie;
+        cfg.czasSymulacji = 3600;
+    }
+
+    @Benchmark
+    public long godzinaStoku(Wynik wynik) {
+        SkiResortSimulation symulacja = new SkiResortSimulation(cfg);
+        SymulacjaZdarzeniowa des = symulacja.uruchomZdarzeniowo(); // Z zegarem silnika - wagi odświeżane w czasie stoku
+        for (Wyciag w : symulacja.wyciagi) {
+            wynik.przejazdy += w.getPrzejazdy();
+        }
+        for (Trasa t : symulacja.trasy) {
+            wynik.zjazdy += t.getZjazdy();
+        }
+        return des.getLiczbaZdarzen();
+    }
+}
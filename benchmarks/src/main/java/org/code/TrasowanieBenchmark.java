@@ -0,0 +1,83 @@
+package org.code;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Szukanie ścieżki wyciągów (znajdzSciezkeWyciagow) i listy stacji osiągalnych (losowanie celu) na syntetycznych
+// grafach wyciągów rosnącej wielkości oraz koszt unieważnienia i ponownego policzenia wiersza tablicy trasowania,
+// gdy wyciąg przechodzi w serwis i z niego wraca.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrasowanieBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    int stacji;
+
+    TablicaTrasowania tablica;
+    Stacja[] od;
+    Stacja[] cel;
+    List<Wyciag> wyciagi;
+    int i;
+
+    @Setup(Level.Trial)
+    public void przygotuj() {
+        Random random = new Random(42);
+        List<Stacja> stacje = new ArrayList<>();
+        for (int s = 0; s < stacji; s++) {
+            stacje.add(new Stacja("s" + s, "bazowa", 1000 + 10 * s));
+        }
+        // Stacja o większym numerze leży wyżej. Każda ma wyciąg do następnej
+        // i drugi, dłuższy skok w górę, więc graf ma wiele alternatywnych ścieżek
+        wyciagi = new ArrayList<>();
+        for (int s = 0; s + 1 < stacji; s++) {
+            dodajWyciag(stacje, s, s + 1);
+            dodajWyciag(stacje, s, Math.min(stacji - 1, s + 2 + random.nextInt(5)));
+        }
+        tablica = new TablicaTrasowania(stacje, wyciagi);
+
+        od = new Stacja[1024];
+        cel = new Stacja[1024];
+        for (int k = 0; k < od.length; k++) {
+            int a = random.nextInt(stacji - 1);
+            od[k] = stacje.get(a);
+            cel[k] = stacje.get(a + 1 + random.nextInt(stacji - a - 1));
+        }
+    }
+
+    private void dodajWyciag(List<Stacja> stacje, int a, int b) {
+        Stacja dol = stacje.get(a);
+        Stacja gora = stacje.get(b);
+        Trasa trasa = new Trasa(dol.nazwa + "-" + gora.nazwa, dol, gora, 0);
+        wyciagi.add(new Wyciag("w" + wyciagi.size(), trasa, 10, 5, 2, 60, 10, 2));
+    }
+
+    @Benchmark
+    public Wyciag[] sciezka() {
+        int k = i++ & 1023;
+        return tablica.sciezka(od[k], cel[k]);
+    }
+
+    @Benchmark
+    public Stacja[] osiagalne() {
+        return tablica.osiagalne(od[i++ & 1023]);
+    }
+
+    @Benchmark
+    public Stacja[] serwisIPowrot() {
+        // Wyciąg z początku grafu - jego zmiana dotyczy wielu wierszy tablicy; potem odczyt wiersza stacji początkowej,
+        // który po unieważnieniu liczy się od nowa
+        int k = i++;
+        Wyciag w = wyciagi.get(k % Math.min(wyciagi.size(), 8));
+        w.oznaczOczekiwanieNaSerwis();
+        w.zakonczSerwis();
+        return tablica.osiagalne(w.trasa.stacjaDolna);
+    }
+}
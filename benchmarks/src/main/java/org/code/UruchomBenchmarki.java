@@ -0,0 +1,19 @@
+package org.code;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Punkt wejścia benchmarks.jar - uruchamia JMH i domyślnie zapisuje wyniki w JSON (jmh-wyniki.json),
+// żeby można je było porównywać między wydaniami. Własne -rf / -rff z linii poleceń mają pierwszeństwo.
+public class UruchomBenchmarki {
+    public static void main(String[] args) throws Exception {
+        List<String> argumenty = new ArrayList<>(List.of(args));
+        if (!argumenty.contains("-rf")) {
+            argumenty.addAll(List.of("-rf", "json"));
+        }
+        if (!argumenty.contains("-rff")) {
+            argumenty.addAll(List.of("-rff", "jmh-wyniki.json"));
+        }
+        org.openjdk.jmh.Main.main(argumenty.toArray(new String[0]));
+    }
+}
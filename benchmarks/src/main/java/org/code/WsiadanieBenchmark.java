@@ -0,0 +1,54 @@
+package org.code;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Przepustowość wsiadania na wyciąg przy długiej kolejce oczekujących.
+// Wyciąg ma interval = 0, więc grupa od razu dojeżdża na górę i wraca na koniec kolejki - kolejka ma stałą długość.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WsiadanieBenchmark {
+
+    @Param({"1000", "100000"})
+    int kolejka; // Liczba narciarzy w kolejce do wyciągu
+
+    @Param({"1", "4"})
+    int grupa; // boardingGroupSize
+
+    Wyciag wyciag;
+    Consumer<Narciarz> zPowrotem;
+    long teraz;
+
+    @Setup(Level.Trial)
+    public void przygotuj() {
+        Stacja dol = new Stacja("dol", "bazowa");
+        Stacja gora = new Stacja("gora", "szczyt");
+        Trasa trasa = new Trasa("dol-gora", dol, gora, 0);
+        wyciag = new Wyciag("W", trasa, Integer.MAX_VALUE, 0, grupa, Integer.MAX_VALUE, 0, 1);
+        for (int i = 1; i <= kolejka; i++) {
+            Narciarz nar = new Narciarz(i, dol, null);
+            dol.narciarzPrzybyl(nar);
+            wyciag.kolejkaOczekujacych.dodaj(nar, PasWsiadania.ZWYKLY);
+        }
+        // Narciarz, który dojechał, zjeżdża i od razu staje z powrotem w kolejce
+        zPowrotem = nar -> {
+            gora.narciarzOdszedl(nar);
+            dol.narciarzPrzybyl(nar);
+            wyciag.kolejkaOczekujacych.dodaj(nar, PasWsiadania.ZWYKLY);
+        };
+    }
+
+    @Benchmark
+    public int wsiadanie() {
+        int wsiadlo = wyciag.wpuscGrupe(teraz);
+        wyciag.obsluzWysiadajacych(teraz, zPowrotem);
+        teraz++;
+        return wsiadlo;
+    }
+}
@@ -0,0 +1,21 @@
+package org.code;
+
+// Błąd w pliku konfiguracji - z miejscem w dokumencie JSON (ścieżka w stylu JsonReader, np. $.wyciagi[2].route),
+// żeby literówka w nazwie stacji była zgłaszana od razu przy wczytaniu, a nie jako null gdzieś w trakcie symulacji
+class BladKonfiguracji extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    final String zrodlo; // Plik albo zasób, z którego czytano konfigurację
+    final String sciezka; // Miejsce w dokumencie JSON
+
+    BladKonfiguracji(String zrodlo, String sciezka, String opis) {
+        super(zrodlo + ": " + sciezka + ": " + opis);
+        this.zrodlo = zrodlo;
+        this.sciezka = sciezka;
+    }
+
+    BladKonfiguracji(String zrodlo, String sciezka, String opis, Throwable przyczyna) {
+        this(zrodlo, sciezka, opis);
+        initCause(przyczyna);
+    }
+}
@@ -0,0 +1,96 @@
+package org.code;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Bramka wyciągu: otwarta, gdy wyciąg przyjmuje narciarzy, zamknięta od oczekiwania na serwis do jego końca.
+// Narciarz przy zamkniętej bramce zapisuje się na liście czekających i nie czeka na żadnym warunku - jego wątek śpi
+// już tylko na własnym semaforze przejazdu. Po serwisie wyciąg sam wpisuje czekających do kolejki, partiami po PARTIA:
+// blokada bramki jest trzymana tylko na czas zdjęcia partii z listy (nigdy w czasie serwisu ani wpisywania do kolejki),
+// więc nadchodzący narciarze nie czekają długo, a przy otwieraniu nie budzi się naraz tysiące wątków.
+// Do opróżnienia listy bramka jest nadal zamknięta - nowi narciarze stają za czekającymi, kolejność przyjścia zostaje.
+class BramkaWyciagu {
+    static final int PARTIA = 256; // Najwięcej narciarzy zdejmowanych z listy pod jedną blokadą
+
+    private final ReentrantLock lock = new ReentrantLock(); // Nie przypina wątków wirtualnych do nośnika
+    private final ArrayDeque<Narciarz> czekajacy = new ArrayDeque<>();
+    private final Narciarz[] partia = new Narciarz[PARTIA]; // Bufor otwierającego (jeden naraz - wyciąg pod monitorem)
+    private volatile boolean otwarta = true;
+    private volatile int liczba; // Długość listy czekających - odczyt bez blokady (limit kolejki wyciągu)
+
+    boolean isOtwarta() {
+        return otwarta;
+    }
+
+    // Narciarz podchodzi do wyciągu: true - bramka otwarta, może stanąć w kolejce; false - czeka na liście
+    // i wyciąg wpisze go do kolejki po serwisie
+    boolean wejdz(Narciarz nar) {
+        if (otwarta) return true; // Zwykły przypadek - bez blokady
+        lock.lock();
+        try {
+            if (otwarta) return true;
+            czekajacy.addLast(nar);
+            liczba = czekajacy.size();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void zamknij() {
+        otwarta = false;
+    }
+
+    // Koniec serwisu - czekający trafiają do kolejki (doKolejki) partiami, bramka otwiera się, gdy lista jest pusta
+    void otworz(Consumer<Narciarz> doKolejki) {
+        while (true) {
+            int n = 0;
+            lock.lock();
+            try {
+                while (n < PARTIA && !czekajacy.isEmpty()) {
+                    partia[n++] = czekajacy.pollFirst();
+                }
+                liczba = czekajacy.size();
+                if (n == 0) {
+                    otwarta = true;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (int i = 0; i < n; i++) {
+                doKolejki.accept(partia[i]);
+                partia[i] = null;
+            }
+        }
+    }
+
+    int liczbaCzekajacych() {
+        return liczba;
+    }
+
+    // Punkt kontrolny - czekający w kolejności przyjścia i ich przywrócenie (bramka zamknięta przez stan wyciągu)
+    List<Narciarz> czekajacy() {
+        lock.lock();
+        try {
+            return new ArrayList<>(czekajacy);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void przywroc(boolean otwarta, List<Narciarz> czekajacy) {
+        lock.lock();
+        try {
+            this.czekajacy.clear();
+            this.czekajacy.addAll(czekajacy);
+            liczba = czekajacy.size();
+            this.otwarta = otwarta && czekajacy.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
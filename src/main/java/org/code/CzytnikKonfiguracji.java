@@ -0,0 +1,299 @@
+package org.code;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Strumieniowe wczytywanie konfiguracji (JsonReader, token po tokenie) - bez refleksji Gson i bez drzewa dokumentu,
+// więc wygenerowane stoki z tysiącami stacji, tras i wyciągów wczytują się w milisekundach.
+// Po wczytaniu sprawdzana jest cała topologia: nazwy stacji w trasach i wyciągach, duplikaty, zakresy parametrów
+// oraz kierunki względem wysokości stacji (trasa zjazdowa w dół, stacje wyciągu na różnych wysokościach).
+// Każdy błąd to BladKonfiguracji z miejscem w pliku (np. $.wyciagi[2].route) zamiast nulla w trakcie symulacji.
+// Źródło to ścieżka do pliku albo "classpath:zasob.json" (np. config.json zapakowany w jar).
+class CzytnikKonfiguracji {
+    static final String PREFIKS_CLASSPATH = "classpath:";
+
+    private final String zrodlo;
+    // Miejsca w pliku dla wartości sprawdzanych dopiero po wczytaniu całości (stacje mogą być za wyciągami)
+    private final Map<Object, String> miejsca = new HashMap<>();
+
+    private CzytnikKonfiguracji(String zrodlo) {
+        this.zrodlo = zrodlo;
+    }
+
+    // Wczytanie z pliku lub zasobu classpath
+    static SkiResortSimulation.Config wczytaj(String zrodlo) throws IOException {
+        InputStream strumien;
+        if (zrodlo.startsWith(PREFIKS_CLASSPATH)) {
+            String zasob = zrodlo.substring(PREFIKS_CLASSPATH.length());
+            strumien = CzytnikKonfiguracji.class.getResourceAsStream(zasob.startsWith("/") ? zasob : "/" + zasob);
+            if (strumien == null) throw new FileNotFoundException("Brak zasobu " + zasob + " w classpath");
+        } else {
+            strumien = Files.newInputStream(Path.of(zrodlo));
+        }
+        try (Reader reader = new BufferedReader(new InputStreamReader(strumien, StandardCharsets.UTF_8), 1 << 16)) {
+            return wczytaj(reader, zrodlo);
+        }
+    }
+
+    static SkiResortSimulation.Config wczytaj(Reader reader, String zrodlo) throws IOException {
+        CzytnikKonfiguracji czytnik = new CzytnikKonfiguracji(zrodlo);
+        JsonReader json = new JsonReader(reader);
+        SkiResortSimulation.Config cfg;
+        try {
+            cfg = czytnik.czytajKonfiguracje(json);
+            if (json.peek() != JsonToken.END_DOCUMENT) {
+                throw czytnik.blad(json, "nadmiarowa treść po końcu konfiguracji");
+            }
+        } catch (BladKonfiguracji e) {
+            throw e;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            // Błąd składni lub typu (np. tekst zamiast liczby) - JsonReader wie, gdzie jest
+            throw new BladKonfiguracji(zrodlo, json.getPath(), e.getMessage(), e);
+        }
+        czytnik.sprawdz(cfg);
+        return cfg;
+    }
+
+    private BladKonfiguracji blad(JsonReader json, String opis) {
+        return new BladKonfiguracji(zrodlo, json.getPath(), opis);
+    }
+
+    private BladKonfiguracji blad(Object element, String pole, String opis) {
+        return new BladKonfiguracji(zrodlo, miejsca.get(element) + "." + pole, opis);
+    }
+
+    // Pola Config - nieznane klucze (np. "_comment") są pomijane, tak jak przy Gson.fromJson
+    private SkiResortSimulation.Config czytajKonfiguracje(JsonReader json) throws IOException {
+        SkiResortSimulation.Config cfg = new SkiResortSimulation.Config();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "stacje" -> cfg.stacje = czytajStacje(json);
+                case "trasy" -> cfg.trasy = czytajTrasy(json);
+                case "wyciagi" -> cfg.wyciagi = czytajWyciagi(json);
+                case "liczbaNarciarzy" -> cfg.liczbaNarciarzy = json.nextInt();
+                case "globalBoardingInterval" -> cfg.globalBoardingInterval = json.nextInt();
+                case "trybWatkow" -> cfg.trybWatkow = tekst(json);
+                case "silnik" -> cfg.silnik = tekst(json);
+                case "czasSymulacji" -> cfg.czasSymulacji = json.nextInt();
+                case "watkiHarmonogramu" -> cfg.watkiHarmonogramu = json.nextInt();
+                case "seed" -> cfg.seed = json.peek() == JsonToken.NULL ? nic(json) : Long.valueOf(json.nextLong());
+                case "okresMigawkiMs" -> cfg.okresMigawkiMs = json.nextInt();
+                case "animacjaFps" -> cfg.animacjaFps = json.nextInt();
+                case "slad" -> cfg.slad = tekst(json);
+                case "wznowienie" -> cfg.wznowienie = tekst(json);
+                case "punktKontrolny" -> cfg.punktKontrolny = tekst(json);
+                case "trasowanie" -> cfg.trasowanie = tekst(json);
+                case "okresTrasowaniaMs" -> cfg.okresTrasowaniaMs = json.nextInt();
+                case "udzialPojedynczych" -> cfg.udzialPojedynczych = json.nextDouble();
+                case "udzialPriorytetu" -> cfg.udzialPriorytetu = json.nextDouble();
+                case "serwisy" -> cfg.serwisy = tekst(json);
+                case "opoznienieSerwisu" -> cfg.opoznienieSerwisu = json.nextDouble();
+                case "maxKolejka" -> cfg.maxKolejka = json.nextInt();
+                case "portHttp" -> cfg.portHttp = json.peek() == JsonToken.NULL ? nic(json) : Integer.valueOf(json.nextInt());
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return cfg;
+    }
+
+    private List<SkiResortSimulation.StationCfg> czytajStacje(JsonReader json) throws IOException {
+        List<SkiResortSimulation.StationCfg> lista = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            SkiResortSimulation.StationCfg sc = new SkiResortSimulation.StationCfg();
+            miejsca.put(sc, json.getPath());
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "name" -> sc.name = tekst(json);
+                    case "type" -> sc.type = tekst(json);
+                    case "altitude" -> sc.altitude = json.peek() == JsonToken.NULL ? nic(json) : Integer.valueOf(json.nextInt());
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+            lista.add(sc);
+        }
+        json.endArray();
+        return lista;
+    }
+
+    private List<SkiResortSimulation.RouteCfg> czytajTrasy(JsonReader json) throws IOException {
+        List<SkiResortSimulation.RouteCfg> lista = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            SkiResortSimulation.RouteCfg rc = new SkiResortSimulation.RouteCfg();
+            miejsca.put(rc, json.getPath());
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "name" -> rc.name = tekst(json);
+                    case "duration" -> rc.duration = json.nextInt();
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+            lista.add(rc);
+        }
+        json.endArray();
+        return lista;
+    }
+
+    private List<SkiResortSimulation.LiftCfg> czytajWyciagi(JsonReader json) throws IOException {
+        List<SkiResortSimulation.LiftCfg> lista = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            SkiResortSimulation.LiftCfg lc = new SkiResortSimulation.LiftCfg();
+            miejsca.put(lc, json.getPath());
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "name" -> lc.name = tekst(json);
+                    case "route" -> lc.route = tekst(json);
+                    case "capacity" -> lc.capacity = json.nextInt();
+                    case "interval" -> lc.interval = json.nextInt();
+                    case "boardingGroupSize" -> lc.boardingGroupSize = json.nextInt();
+                    case "maintenanceTime" -> lc.maintenanceTime = json.nextInt();
+                    case "maintenanceDuration" -> lc.maintenanceDuration = json.nextInt();
+                    case "pasy" -> lc.pasy = czytajTeksty(json);
+                    case "maxKolejka" -> lc.maxKolejka = json.peek() == JsonToken.NULL ? nic(json) : Integer.valueOf(json.nextInt());
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+            lista.add(lc);
+        }
+        json.endArray();
+        return lista;
+    }
+
+    private static List<String> czytajTeksty(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) return nic(json);
+        List<String> lista = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            lista.add(tekst(json));
+        }
+        json.endArray();
+        return lista;
+    }
+
+    private static String tekst(JsonReader json) throws IOException {
+        return json.peek() == JsonToken.NULL ? nic(json) : json.nextString();
+    }
+
+    private static <T> T nic(JsonReader json) throws IOException {
+        json.nextNull();
+        return null;
+    }
+
+    // Sprawdzenie topologii i parametrów całej konfiguracji
+    private void sprawdz(SkiResortSimulation.Config cfg) {
+        if (cfg.stacje == null || cfg.stacje.isEmpty()) throw new BladKonfiguracji(zrodlo, "$.stacje", "brak stacji");
+        if (cfg.trasy == null) cfg.trasy = new ArrayList<>(); // Trasy zjazdowe mogą powstać w trakcie symulacji
+        if (cfg.wyciagi == null) cfg.wyciagi = new ArrayList<>();
+
+        Map<String, Integer> stacje = new HashMap<>(); // Nazwa stacji -> wysokość (podana albo z typu)
+        for (SkiResortSimulation.StationCfg sc : cfg.stacje) {
+            if (sc.name == null || sc.name.isEmpty()) throw blad(sc, "name", "brak nazwy stacji");
+            if (sc.name.contains("-")) throw blad(sc, "name", "nazwa stacji nie może zawierać '-' (separator w nazwach tras)");
+            if (sc.type == null && sc.altitude == null) throw blad(sc, "type", "brak typu i wysokości stacji " + sc.name);
+            int wysokosc = sc.altitude != null ? sc.altitude : Stacja.wysokoscZTypu(sc.type);
+            if (stacje.put(sc.name, wysokosc) != null) throw blad(sc, "name", "powtórzona stacja " + sc.name);
+        }
+
+        Set<String> trasy = new HashSet<>();
+        for (SkiResortSimulation.RouteCfg rc : cfg.trasy) {
+            String[] stacjeTrasy = sprawdzNazweTrasy(rc, "name", rc.name, stacje.keySet());
+            if (stacje.get(stacjeTrasy[0]) <= stacje.get(stacjeTrasy[1])) {
+                throw blad(rc, "name", "trasa zjazdowa musi prowadzić w dół (" + stacjeTrasy[0] + " " + stacje.get(stacjeTrasy[0])
+                        + " m, " + stacjeTrasy[1] + " " + stacje.get(stacjeTrasy[1]) + " m)");
+            }
+            if (rc.duration <= 0) throw blad(rc, "duration", "czas zjazdu musi być dodatni");
+            if (!trasy.add(rc.name)) throw blad(rc, "name", "powtórzona trasa " + rc.name);
+        }
+
+        Set<String> wyciagi = new HashSet<>();
+        for (SkiResortSimulation.LiftCfg lc : cfg.wyciagi) {
+            if (lc.name == null || lc.name.isEmpty()) throw blad(lc, "name", "brak nazwy wyciągu");
+            if (!wyciagi.add(lc.name)) throw blad(lc, "name", "powtórzony wyciąg " + lc.name);
+            String[] stacjeWyciagu = sprawdzNazweTrasy(lc, "route", lc.route, stacje.keySet());
+            if (stacje.get(stacjeWyciagu[0]).equals(stacje.get(stacjeWyciagu[1]))) {
+                throw blad(lc, "route", "stacje wyciągu na tej samej wysokości - nie wiadomo, która jest dolna: " + lc.route);
+            }
+            if (lc.capacity <= 0) throw blad(lc, "capacity", "pojemność musi być dodatnia");
+            if (lc.interval <= 0) throw blad(lc, "interval", "czas wjazdu musi być dodatni");
+            if (lc.boardingGroupSize <= 0) throw blad(lc, "boardingGroupSize", "grupa musi być dodatnia");
+            if (lc.maintenanceTime <= 0) throw blad(lc, "maintenanceTime", "odstęp między serwisami musi być dodatni");
+            if (lc.maintenanceDuration < 0) throw blad(lc, "maintenanceDuration", "czas serwisu nie może być ujemny");
+            if (lc.maxKolejka != null && lc.maxKolejka < 0) throw blad(lc, "maxKolejka", "limit kolejki nie może być ujemny");
+            if (lc.pasy != null) {
+                if (lc.pasy.isEmpty()) throw blad(lc, "pasy", "lista pasów wsiadania jest pusta");
+                Set<PasWsiadania> pasy = new HashSet<>();
+                for (String nazwa : lc.pasy) {
+                    PasWsiadania pas = PasWsiadania.zNazwy(nazwa);
+                    if (pas == null) throw blad(lc, "pasy", "nieznany pas " + nazwa + " (zwykly, pojedynczy, priorytet)");
+                    if (!pasy.add(pas)) throw blad(lc, "pasy", "powtórzony pas " + nazwa);
+                }
+            }
+        }
+
+        if (cfg.liczbaNarciarzy < 0) throw new BladKonfiguracji(zrodlo, "$.liczbaNarciarzy", "liczba narciarzy nie może być ujemna");
+        if (cfg.globalBoardingInterval <= 0) {
+            throw new BladKonfiguracji(zrodlo, "$.globalBoardingInterval", "odstęp między jednostkami musi być dodatni");
+        }
+        if (!"platform".equalsIgnoreCase(cfg.trybWatkow) && !"virtual".equalsIgnoreCase(cfg.trybWatkow)) {
+            throw new BladKonfiguracji(zrodlo, "$.trybWatkow", "oczekiwano \"platform\" lub \"virtual\": " + cfg.trybWatkow);
+        }
+        if (!"threads".equalsIgnoreCase(cfg.silnik) && !"events".equalsIgnoreCase(cfg.silnik)) {
+            throw new BladKonfiguracji(zrodlo, "$.silnik", "oczekiwano \"threads\" lub \"events\": " + cfg.silnik);
+        }
+        if (!"najkrotsza".equalsIgnoreCase(cfg.trasowanie) && !"kolejki".equalsIgnoreCase(cfg.trasowanie)) {
+            throw new BladKonfiguracji(zrodlo, "$.trasowanie", "oczekiwano \"najkrotsza\" lub \"kolejki\": " + cfg.trasowanie);
+        }
+        if (cfg.udzialPojedynczych < 0 || cfg.udzialPriorytetu < 0 || cfg.udzialPojedynczych + cfg.udzialPriorytetu > 1) {
+            throw new BladKonfiguracji(zrodlo, "$.udzialPojedynczych", "udziały pasów muszą być z [0, 1] i w sumie najwyżej 1");
+        }
+        if (cfg.okresTrasowaniaMs <= 0) {
+            throw new BladKonfiguracji(zrodlo, "$.okresTrasowaniaMs", "okres odświeżania wag musi być dodatni");
+        }
+        if (!"niezalezne".equalsIgnoreCase(cfg.serwisy) && !"planowane".equalsIgnoreCase(cfg.serwisy)) {
+            throw new BladKonfiguracji(zrodlo, "$.serwisy", "oczekiwano \"niezalezne\" lub \"planowane\": " + cfg.serwisy);
+        }
+        if (cfg.opoznienieSerwisu < 0 || cfg.opoznienieSerwisu >= 1) {
+            throw new BladKonfiguracji(zrodlo, "$.opoznienieSerwisu", "opóźnienie serwisu musi być z [0, 1)");
+        }
+        if (cfg.maxKolejka < 0) throw new BladKonfiguracji(zrodlo, "$.maxKolejka", "limit kolejki nie może być ujemny");
+        if (cfg.portHttp != null && (cfg.portHttp < 0 || cfg.portHttp > 65535)) {
+            throw new BladKonfiguracji(zrodlo, "$.portHttp", "port musi być z [0, 65535]: " + cfg.portHttp);
+        }
+    }
+
+    // Nazwa trasy to "stacja1-stacja2" - obie stacje muszą istnieć; zwraca obie nazwy
+    private String[] sprawdzNazweTrasy(Object element, String pole, String nazwa, Set<String> stacje) {
+        if (nazwa == null) throw blad(element, pole, "brak trasy");
+        int kreska = nazwa.indexOf('-');
+        if (kreska < 0 || kreska != nazwa.lastIndexOf('-')) {
+            throw blad(element, pole, "oczekiwano \"stacja1-stacja2\": " + nazwa);
+        }
+        String od = nazwa.substring(0, kreska);
+        String doStacji = nazwa.substring(kreska + 1);
+        if (!stacje.contains(od)) throw blad(element, pole, "nieznana stacja " + od + " w " + nazwa);
+        if (!stacje.contains(doStacji)) throw blad(element, pole, "nieznana stacja " + doStacji + " w " + nazwa);
+        if (od.equals(doStacji)) throw blad(element, pole, "trasa z i do tej samej stacji: " + nazwa);
+        return new String[]{od, doStacji};
+    }
+}
@@ -0,0 +1,70 @@
+package org.code;
+
+import java.util.concurrent.*; // Programowanie wielowątkowe
+
+// Jeden wspólny harmonogram dla wszystkich wyciągów - zamiast wątku na wyciąg, który co 10 ms sprawdza co ma zrobić,
+// wyciąg jest wybudzany przez ScheduledExecutorService dokładnie na najbliższe zdarzenie (wsiadanie, przybycie, serwis).
+// Bezczynny wyciąg nie zużywa CPU, a mała pula wątków obsługuje nawet tysiące wyciągów.
+class HarmonogramWyciagow implements PlanistaWyciagow {
+    private final ScheduledThreadPoolExecutor wykonawca;
+
+    public HarmonogramWyciagow(int liczbaWatkow) {
+        wykonawca = new ScheduledThreadPoolExecutor(Math.max(1, liczbaWatkow), r -> {
+            Thread t = new Thread(r, "harmonogram-wyciagow");
+            t.setDaemon(true); // Harmonogram nie blokuje zamknięcia aplikacji
+            return t;
+        });
+        wykonawca.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public long teraz() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void zaplanuj(Wyciag w, long czas) {
+        // Trzymamy tylko najwcześniejsze wybudzenie - późniejsze zadanie po uruchomieniu rozpozna, że jest nieaktualne
+        synchronized(w) {
+            if(czas == Long.MAX_VALUE || czas >= w.zaplanowanyNa) return;
+            w.zaplanowanyNa = czas;
+        }
+        long opoznienie = Math.max(0, czas - teraz());
+        wykonawca.schedule(() -> wykonaj(w, czas), opoznienie, TimeUnit.MILLISECONDS);
+    }
+
+    private void wykonaj(Wyciag w, long czas) {
+        synchronized(w) {
+            if(w.zaplanowanyNa != czas) return; // Nieaktualne wybudzenie - zaplanowano wcześniejsze
+            w.zaplanowanyNa = Long.MAX_VALUE;
+            try {
+                w.krok();
+            } catch (RuntimeException e) {
+                // Błąd jednego wyciągu nie może zatrzymać harmonogramu pozostałych ani tego wyciągu - bez nowego
+                // wybudzenia wyciąg stanąłby na zawsze, a narciarze w kolejce i na krzesełkach czekaliby bez końca
+                System.err.println("Błąd w kroku wyciągu " + w.name + " - ponowna próba za jednostkę wyciągu");
+                e.printStackTrace();
+                zaplanuj(w, teraz() + Math.max(1, w.globalBoardingInterval) * 1000L);
+            }
+        }
+    }
+
+    @Override
+    public void dojechal(Narciarz nar, Wyciag w) {
+        nar.powiadomDojechal(); // Zwolnienie semafora - wątek narciarza kontynuuje podróż
+    }
+
+    @Override
+    public void serwisRozpoczety(Wyciag w) {
+        System.out.println("Wyciąg " + w.name + " serwis przez " + w.maintenanceDuration + " sek.");
+    }
+
+    @Override
+    public void serwisZakonczony(Wyciag w) {
+        System.out.println("Wyciąg " + w.name + " koniec serwisu."); // Czekających wpisuje do kolejki sam wyciąg
+    }
+
+    public void zatrzymaj() {
+        wykonawca.shutdownNow();
+    }
+}
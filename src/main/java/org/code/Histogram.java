@@ -0,0 +1,99 @@
+package org.code;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bezblokadowy histogram wartości nieujemnych (np. czasów w ms) z kubełkami log-liniowymi:
+// wartości 0-15 mają własne kubełki, a każdy przedział [2^k, 2^(k+1)) jest dzielony na 16 równych części,
+// więc błąd percentyla to max ~6%. Zapis to jedno getAndIncrement na AtomicLongArray - bez locków.
+class Histogram {
+    private static final int POD_KUBELKI = 16; // Liczba kubełków na każdą potęgę dwójki
+    private static final int PRZESUNIECIE = 4; // log2(POD_KUBELKI)
+    private static final int LICZBA_KUBELKOW = POD_KUBELKI + (63 - PRZESUNIECIE) * POD_KUBELKI;
+
+    private final AtomicLongArray kubelki = new AtomicLongArray(LICZBA_KUBELKOW);
+    private final AtomicLong liczba = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void zapisz(long wartosc) {
+        if(wartosc < 0) wartosc = 0;
+        kubelki.getAndIncrement(indeks(wartosc));
+        liczba.incrementAndGet();
+        // Max aktualizujemy tylko, gdy wartość jest większa - zwykle bez żadnego CAS
+        long m = max.get();
+        while(wartosc > m && !max.compareAndSet(m, wartosc)) {
+            m = max.get();
+        }
+    }
+
+    private static int indeks(long v) {
+        if(v < POD_KUBELKI) return (int) v;
+        int k = 63 - Long.numberOfLeadingZeros(v); // v w przedziale [2^k, 2^(k+1))
+        int pod = (int) (v >>> (k - PRZESUNIECIE)) - POD_KUBELKI;
+        return POD_KUBELKI + (k - PRZESUNIECIE) * POD_KUBELKI + pod;
+    }
+
+    // Górna granica wartości w kubełku
+    private static long gornaGranica(int indeks) {
+        if(indeks < POD_KUBELKI) return indeks;
+        int k = (indeks - POD_KUBELKI) / POD_KUBELKI + PRZESUNIECIE;
+        int pod = (indeks - POD_KUBELKI) % POD_KUBELKI;
+        return ((long) (POD_KUBELKI + pod + 1) << (k - PRZESUNIECIE)) - 1;
+    }
+
+    // Stan do punktu kontrolnego - tylko niepuste kubełki (zwykle kilkadziesiąt z ponad 900)
+    void zapiszStan(DataOutput out) throws IOException {
+        out.writeLong(liczba.get());
+        out.writeLong(max.get());
+        int niepuste = 0;
+        for(int i = 0; i < LICZBA_KUBELKOW; i++) {
+            if(kubelki.get(i) != 0) niepuste++;
+        }
+        out.writeShort(niepuste);
+        for(int i = 0; i < LICZBA_KUBELKOW; i++) {
+            long k = kubelki.get(i);
+            if(k != 0) {
+                out.writeShort(i);
+                out.writeLong(k);
+            }
+        }
+    }
+
+    void wczytajStan(DataInput in) throws IOException {
+        liczba.set(in.readLong());
+        max.set(in.readLong());
+        for(int i = 0; i < LICZBA_KUBELKOW; i++) {
+            kubelki.set(i, 0);
+        }
+        int niepuste = in.readUnsignedShort();
+        for(int i = 0; i < niepuste; i++) {
+            kubelki.set(in.readUnsignedShort(), in.readLong());
+        }
+    }
+
+    public long getLiczba() {
+        return liczba.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // Percentyl (np. 0.5, 0.99) - górna granica kubełka, ale nie więcej niż zaobserwowane maksimum
+    public long percentyl(double p) {
+        long n = liczba.get();
+        if(n == 0) return 0;
+        long prog = Math.max(1, (long) Math.ceil(p * n));
+        long suma = 0;
+        for(int i = 0; i < LICZBA_KUBELKOW; i++) {
+            suma += kubelki.get(i);
+            if(suma >= prog) {
+                return Math.min(gornaGranica(i), max.get());
+            }
+        }
+        return max.get();
+    }
+}
@@ -0,0 +1,60 @@
+package org.code;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Indeks tras zjazdowych po parze stacji (od, do). Stacja nie nadpisuje equals/hashCode, więc kluczem jest tożsamość
+// obiektu - wyszukiwanie to dwa odczyty z ConcurrentHashMap, bez sklejania nazw i bez alokacji.
+// Brakująca trasa jest tworzona atomowo (computeIfAbsent), więc równoległe zjazdy nie utworzą duplikatów.
+class IndeksTras {
+    private final ConcurrentHashMap<Stacja, ConcurrentHashMap<Stacja, Trasa>> zjazdy = new ConcurrentHashMap<>();
+    private final List<Trasa> trasy; // Lista wszystkich tras do iterowania (GUI / TUI) - musi być bezpieczna wątkowo
+    SladZdarzen slad; // Zapis tras tworzonych w trakcie symulacji (null - bez śladu)
+
+    public IndeksTras(List<Trasa> trasy) {
+        this.trasy = trasy;
+    }
+
+    // Rejestracja trasy z konfiguracji - do indeksu trafiają tylko trasy zjazdowe (czas > 0)
+    public void dodaj(Trasa t) {
+        dopisz(t);
+        if(t.duration > 0) {
+            zjazdy.computeIfAbsent(t.stacja1, k -> new ConcurrentHashMap<>()).putIfAbsent(t.stacja2, t);
+        }
+    }
+
+    public Trasa znajdz(Stacja from, Stacja to) {
+        ConcurrentHashMap<Stacja, Trasa> doStacji = zjazdy.get(from);
+        return doStacji == null ? null : doStacji.get(to);
+    }
+
+    // Trasa zjazdu między stacjami - jeśli nie ma, tworzymy nową z losowym czasem zjazdu (5-10 sekund)
+    public Trasa znajdzLubUtworz(Stacja from, Stacja to, Random random) {
+        Trasa t = znajdz(from, to);
+        if(t != null) return t;
+        return zjazdy.computeIfAbsent(from, k -> new ConcurrentHashMap<>()).computeIfAbsent(to, k -> {
+            Trasa nowa = new Trasa(from.nazwa + "-" + to.nazwa, from, to, 5 + random.nextInt(5));
+            dopisz(nowa);
+            return nowa;
+        });
+    }
+
+    // Dopisanie trasy na koniec listy - indeks trasy to jej pozycja na liście (ten sam w śladzie zdarzeń i w migawce)
+    private void dopisz(Trasa t) {
+        synchronized (trasy) {
+            t.indeks = trasy.size();
+            trasy.add(t);
+            if (slad != null) {
+                if (t.indeks >= SladZdarzen.MAX_OBIEKTOW) {
+                    slad.wylacz(new IOException("trasa " + t.name + " poza zakresem rekordu śladu (" +
+                            SladZdarzen.MAX_OBIEKTOW + " tras)"));
+                } else {
+                    slad.zapisz(SladZdarzen.TRASA, 0, t.indeks, 0,
+                            ((long) t.stacja1.indeks << 48) | ((long) t.stacja2.indeks << 32) | t.duration);
+                }
+            }
+        }
+    }
+}
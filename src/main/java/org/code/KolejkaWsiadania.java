@@ -0,0 +1,157 @@
+package org.code;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Kolejka do wyciągu podzielona na pasy wsiadania (każdy pas to osobna kolejka FIFO). Narciarze dopisują się z wielu
+// wątków, a miejsca na krzesełku rozdziela wybierz() - wołane przez wyciąg pod jego monitorem, przy każdym odjeździe:
+//  1. priorytet - najwyżej połowa miejsc (w górę), gdy w innych pasach ktoś czeka; inaczej całe krzesełko,
+//  2. jedno miejsce dla pasa pojedynczego, jeśli jego czoło czeka dłużej niż czoło zwykłego pasa (bez zagłodzenia),
+//  3. zwykły pas - całe grupy w kolejności, dopóki się mieszczą; grupa większa niż puste krzesełko jest dzielona,
+//     a niemieszcząca się na częściowo zajętym czeka na następne (bez wyprzedzania w pasie),
+//  4. pas pojedynczy wypełnia wolne miejsca, a na koniec resztę zajmuje priorytet.
+// Grupa to narciarze, którzy stanęli w zwykłym pasie w tej samej chwili (np. zjechali razem z poprzedniego wyciągu) -
+// tylko gdy pasy są podane w konfiguracji wyciągu. Bez nich jest jeden pas i każdy zajmuje kolejne wolne miejsce.
+class KolejkaWsiadania {
+    final PasWsiadania[] pasy; // Pasy wyciągu w kolejności z konfiguracji
+    private final LinkedBlockingQueue<Narciarz>[] kolejki; // Kolejka każdego pasa (indeks jak w pasy)
+    private final int[] indeksPasa = new int[PasWsiadania.values().length]; // Numer pasa wyciągu, -1 - brak
+    private final boolean grupyRazem;
+
+    KolejkaWsiadania() {
+        this(new PasWsiadania[]{PasWsiadania.ZWYKLY}, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    KolejkaWsiadania(PasWsiadania[] pasy, boolean grupyRazem) {
+        this.pasy = pasy;
+        this.grupyRazem = grupyRazem;
+        kolejki = (LinkedBlockingQueue<Narciarz>[]) new LinkedBlockingQueue<?>[pasy.length];
+        Arrays.fill(indeksPasa, -1);
+        for (int i = 0; i < pasy.length; i++) {
+            kolejki[i] = new LinkedBlockingQueue<>();
+            indeksPasa[pasy[i].ordinal()] = i;
+        }
+    }
+
+    // Pas, w którym stanie narciarz: jego własny, jeśli wyciąg go ma, inaczej zwykły, a bez zwykłego - pierwszy
+    PasWsiadania pasDla(Narciarz nar) {
+        if (indeksPasa[nar.pas.ordinal()] >= 0) return nar.pas;
+        return indeksPasa[PasWsiadania.ZWYKLY.ordinal()] >= 0 ? PasWsiadania.ZWYKLY : pasy[0];
+    }
+
+    void dodaj(Narciarz nar, PasWsiadania pas) {
+        kolejki[indeksPasa[pas.ordinal()]].add(nar);
+    }
+
+    // Numer pasa w wyciągu (-1, gdy wyciąg nie ma takiego pasa)
+    int indeks(PasWsiadania pas) {
+        return indeksPasa[pas.ordinal()];
+    }
+
+    LinkedBlockingQueue<Narciarz> kolejka(int indeksPasa) {
+        return kolejki[indeksPasa];
+    }
+
+    // Łączna liczba czekających - odczyt liczników kolejek, bez przeglądania
+    int size() {
+        int suma = 0;
+        for (LinkedBlockingQueue<Narciarz> k : kolejki) {
+            suma += k.size();
+        }
+        return suma;
+    }
+
+    boolean isEmpty() {
+        for (LinkedBlockingQueue<Narciarz> k : kolejki) {
+            if (!k.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    void clear() {
+        for (LinkedBlockingQueue<Narciarz> k : kolejki) {
+            k.clear();
+        }
+    }
+
+    // Usunięcie narciarza (odtwarzanie śladu) - zwraca numer pasa, w którym stał, albo -1
+    int usun(Narciarz nar) {
+        for (int i = 0; i < kolejki.length; i++) {
+            if (kolejki[i].peek() == nar) {
+                kolejki[i].poll();
+                return i;
+            }
+        }
+        for (int i = 0; i < kolejki.length; i++) {
+            if (kolejki[i].remove(nar)) return i; // W trybie wątkowym kolejność w śladzie i w kolejce może się różnić
+        }
+        return -1;
+    }
+
+    // Wybór narciarzy na jedno krzesełko z wolne miejscami - wpisuje ich do grupa, a numery pasów do pasGrupy,
+    // zwraca liczbę wybranych. Wołane tylko przez wyciąg (jeden zdejmujący naraz)
+    int wybierz(int wolne, Narciarz[] grupa, byte[] pasGrupy) {
+        if (kolejki.length == 1 && !grupyRazem) {
+            return wez(0, wolne, grupa, pasGrupy, 0);
+        }
+        int p = indeks(PasWsiadania.PRIORYTET);
+        int z = indeks(PasWsiadania.ZWYKLY);
+        int s = indeks(PasWsiadania.POJEDYNCZY);
+        int n = 0;
+
+        if (p >= 0) {
+            boolean inniCzekaja = (z >= 0 && !kolejki[z].isEmpty()) || (s >= 0 && !kolejki[s].isEmpty());
+            n += wez(p, inniCzekaja ? (wolne + 1) / 2 : wolne, grupa, pasGrupy, n);
+        }
+        if (s >= 0 && n < wolne && z >= 0) {
+            Narciarz samotny = kolejki[s].peek();
+            Narciarz czolo = kolejki[z].peek();
+            if (samotny != null && (czolo == null || samotny.czasDolaczenia <= czolo.czasDolaczenia)) {
+                n += wez(s, 1, grupa, pasGrupy, n);
+            }
+        }
+        if (z >= 0) {
+            while (n < wolne) {
+                int wielkosc = wielkoscGrupy(kolejki[z], wolne + 1);
+                if (wielkosc == 0) break;
+                if (wielkosc <= wolne - n) {
+                    n += wez(z, wielkosc, grupa, pasGrupy, n);
+                } else {
+                    if (n == 0) n += wez(z, wolne, grupa, pasGrupy, n); // Grupa większa niż krzesełko
+                    break;
+                }
+            }
+        }
+        if (s >= 0) n += wez(s, wolne - n, grupa, pasGrupy, n);
+        if (p >= 0) n += wez(p, wolne - n, grupa, pasGrupy, n);
+        return n;
+    }
+
+    // Zdjęcie najwyżej ile narciarzy z czoła pasa na miejsca od pozycji od
+    private int wez(int pas, int ile, Narciarz[] grupa, byte[] pasGrupy, int od) {
+        int wzieto = 0;
+        while (wzieto < ile) {
+            Narciarz nar = kolejki[pas].poll();
+            if (nar == null) break;
+            grupa[od + wzieto] = nar;
+            pasGrupy[od + wzieto] = (byte) pas;
+            wzieto++;
+        }
+        return wzieto;
+    }
+
+    // Liczba narciarzy na czele pasa, którzy stanęli w nim w tej samej chwili (najwyżej limit)
+    private int wielkoscGrupy(LinkedBlockingQueue<Narciarz> kolejka, int limit) {
+        Iterator<Narciarz> it = kolejka.iterator();
+        if (!it.hasNext()) return 0;
+        if (!grupyRazem) return 1;
+        long czas = it.next().czasDolaczenia;
+        int wielkosc = 1;
+        while (wielkosc < limit && it.hasNext() && it.next().czasDolaczenia == czas) {
+            wielkosc++;
+        }
+        return wielkosc;
+    }
+}
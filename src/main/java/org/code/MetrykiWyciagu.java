@@ -0,0 +1,197 @@
+package org.code;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Metryki jednego wyciągu zbierane na ścieżce wsiadania i przybycia, bez locków:
+// - czas oczekiwania w kolejce (od dołączenia do wsiadania) jako histogram,
+// - liczba odjazdów jednostek i zajętych miejsc (wypełnienie krzesełek względem boardingGroupSize), także rozkład
+//   odjazdów według liczby zajętych miejsc na krzesełku,
+// - miejsca utracone przez serwis (jednostki, które nie zabrały nikogo, bo wyciąg czekał na serwis lub był w serwisie),
+// - przy kilku pasach wsiadania: czas oczekiwania i liczba wsiadających w każdym pasie,
+// - najdłuższa kolejka oraz rezygnacje z pełnej kolejki (maxKolejka) i przekierowania narciarzy po rezygnacji.
+class MetrykiWyciagu {
+    final Histogram czasOczekiwania = new Histogram(); // ms
+    private final LongAdder odjazdy = new LongAdder(); // Jednostki, które odjechały z kimś z kolejki
+    private final LongAdder zajeteMiejsca = new LongAdder();
+    private final LongAdder oferowaneMiejsca = new LongAdder(); // odjazdy * boardingGroupSize
+    private final LongAdder utraconeMiejsca = new LongAdder(); // Miejsca niedostępne z powodu serwisu
+    private final LongAdder czasNiedostepnosci = new LongAdder(); // ms od zaplanowania serwisu do jego końca
+    private final LongAccumulator najdluzszaKolejka = new LongAccumulator(Math::max, 0);
+    private final LongAdder odrzucenia = new LongAdder(); // Narciarze, którzy zrezygnowali z pełnej kolejki
+    private final LongAdder przekierowania = new LongAdder(); // Odrzuceni, którzy ruszyli inną drogą
+    private volatile long czasStartu; // Początek pomiaru (start wyciągu)
+    private Histogram[] oczekiwaniePasa = new Histogram[0]; // Tylko dla wyciągów z kilkoma pasami
+    private LongAdder[] wsiadloPasem = new LongAdder[0];
+    private LongAdder[] odjazdyZajetych = new LongAdder[0]; // Indeks - liczba zajętych miejsc krzesełka
+
+    void ustawMiejsca(int boardingGroupSize) {
+        odjazdyZajetych = new LongAdder[boardingGroupSize + 1];
+        for(int i = 0; i <= boardingGroupSize; i++) {
+            odjazdyZajetych[i] = new LongAdder();
+        }
+    }
+
+    void ustawPasy(int liczba) {
+        if(liczba < 2) return; // Jeden pas - metryki wyciągu to metryki pasa
+        oczekiwaniePasa = new Histogram[liczba];
+        wsiadloPasem = new LongAdder[liczba];
+        for(int i = 0; i < liczba; i++) {
+            oczekiwaniePasa[i] = new Histogram();
+            wsiadloPasem[i] = new LongAdder();
+        }
+    }
+
+    void start(long teraz) {
+        czasStartu = teraz;
+    }
+
+    void zapiszOczekiwanie(long ms, int pas) {
+        czasOczekiwania.zapisz(ms);
+        if(pas < oczekiwaniePasa.length) {
+            oczekiwaniePasa[pas].zapisz(ms);
+            wsiadloPasem[pas].increment();
+        }
+    }
+
+    void zapiszOdjazd(int wsiadlo, int boardingGroupSize) {
+        odjazdy.increment();
+        zajeteMiejsca.add(wsiadlo);
+        oferowaneMiejsca.add(boardingGroupSize);
+        if(wsiadlo < odjazdyZajetych.length) odjazdyZajetych[wsiadlo].increment();
+    }
+
+    void zapiszKolejke(int dlugosc) {
+        najdluzszaKolejka.accumulate(dlugosc);
+    }
+
+    void zapiszOdrzucenie() {
+        odrzucenia.increment();
+    }
+
+    void zapiszPrzekierowanie() {
+        przekierowania.increment();
+    }
+
+    void zapiszSerwis(long czasMs, long utracone) {
+        czasNiedostepnosci.add(czasMs);
+        utraconeMiejsca.add(utracone);
+    }
+
+    // Stan do punktu kontrolnego (wołane, gdy nikt nie zapisuje metryk)
+    void zapiszStan(DataOutput out) throws IOException {
+        czasOczekiwania.zapiszStan(out);
+        out.writeLong(odjazdy.sum());
+        out.writeLong(zajeteMiejsca.sum());
+        out.writeLong(oferowaneMiejsca.sum());
+        out.writeLong(utraconeMiejsca.sum());
+        out.writeLong(czasNiedostepnosci.sum());
+        out.writeLong(czasStartu);
+        out.writeByte(oczekiwaniePasa.length);
+        for(int i = 0; i < oczekiwaniePasa.length; i++) {
+            oczekiwaniePasa[i].zapiszStan(out);
+            out.writeLong(wsiadloPasem[i].sum());
+        }
+        out.writeInt(odjazdyZajetych.length);
+        for(LongAdder odjazdyZ : odjazdyZajetych) {
+            out.writeLong(odjazdyZ.sum());
+        }
+        out.writeLong(najdluzszaKolejka.get());
+        out.writeLong(odrzucenia.sum());
+        out.writeLong(przekierowania.sum());
+    }
+
+    void wczytajStan(DataInput in) throws IOException {
+        czasOczekiwania.wczytajStan(in);
+        ustaw(odjazdy, in.readLong());
+        ustaw(zajeteMiejsca, in.readLong());
+        ustaw(oferowaneMiejsca, in.readLong());
+        ustaw(utraconeMiejsca, in.readLong());
+        ustaw(czasNiedostepnosci, in.readLong());
+        czasStartu = in.readLong();
+        if(in.readUnsignedByte() != oczekiwaniePasa.length) throw new IOException("Inna liczba pasów wsiadania");
+        for(int i = 0; i < oczekiwaniePasa.length; i++) {
+            oczekiwaniePasa[i].wczytajStan(in);
+            ustaw(wsiadloPasem[i], in.readLong());
+        }
+        if(in.readInt() != odjazdyZajetych.length) throw new IOException("Inna liczba miejsc na krzesełku");
+        for(LongAdder odjazdyZ : odjazdyZajetych) {
+            ustaw(odjazdyZ, in.readLong());
+        }
+        najdluzszaKolejka.reset();
+        najdluzszaKolejka.accumulate(in.readLong());
+        ustaw(odrzucenia, in.readLong());
+        ustaw(przekierowania, in.readLong());
+    }
+
+    private static void ustaw(LongAdder licznik, long wartosc) {
+        licznik.reset();
+        licznik.add(wartosc);
+    }
+
+    public int getLiczbaPasow() {
+        return oczekiwaniePasa.length;
+    }
+
+    public Histogram getOczekiwaniePasa(int pas) {
+        return oczekiwaniePasa[pas];
+    }
+
+    public long getWsiadloPasem(int pas) {
+        return wsiadloPasem[pas].sum();
+    }
+
+    // Część oferowanych miejsc zajęta przez pas (suma po pasach to wypełnienie wyciągu)
+    public double getWypelnieniePasa(int pas) {
+        long oferowane = oferowaneMiejsca.sum();
+        return oferowane == 0 ? 0.0 : (double) wsiadloPasem[pas].sum() / oferowane;
+    }
+
+    public long getOdjazdy() {
+        return odjazdy.sum();
+    }
+
+    // Rozkład zajętości krzesełek: [k] - liczba odjazdów z k zajętymi miejscami
+    public long[] getOdjazdyWgZajetosci() {
+        long[] rozklad = new long[odjazdyZajetych.length];
+        for(int i = 0; i < rozklad.length; i++) {
+            rozklad[i] = odjazdyZajetych[i].sum();
+        }
+        return rozklad;
+    }
+
+    // Średnie wypełnienie jednostek, które odjechały (0.0 - 1.0)
+    public double getWypelnienie() {
+        long oferowane = oferowaneMiejsca.sum();
+        return oferowane == 0 ? 0.0 : (double) zajeteMiejsca.sum() / oferowane;
+    }
+
+    public long getUtraconeMiejsca() {
+        return utraconeMiejsca.sum();
+    }
+
+    public long getNajdluzszaKolejka() {
+        return najdluzszaKolejka.get();
+    }
+
+    public long getOdrzucenia() {
+        return odrzucenia.sum();
+    }
+
+    public long getPrzekierowania() {
+        return przekierowania.sum();
+    }
+
+    public long getCzasNiedostepnosci() {
+        return czasNiedostepnosci.sum();
+    }
+
+    // Liczba przejazdów na minutę od startu wyciągu do chwili teraz
+    public double naMinute(long przejazdy, long teraz) {
+        long ms = teraz - czasStartu;
+        return ms <= 0 ? 0.0 : przejazdy * 60_000.0 / ms;
+    }
+}
@@ -0,0 +1,100 @@
+package org.code;
+
+import java.util.List;
+
+// Niezmienny obraz stanu stoku w jednej chwili. Listy są równoległe do list modelu (stacje, wyciagi, trasy),
+// więc i-ty element opisuje i-tą stację / wyciąg / trasę symulacji.
+// Liczniki obecności (na stacjach, na wyciągach, na trasach) pochodzą z jednego spójnego przekroju - narciarz
+// jest policzony dokładnie w jednym miejscu. Statystyki (przejazdy, percentyle) są odczytywane zaraz po nim.
+final class MigawkaStoku {
+
+    static final class StanStacji {
+        final String nazwa;
+        final int narciarzy;
+
+        StanStacji(String nazwa, int narciarzy) {
+            this.nazwa = nazwa;
+            this.narciarzy = narciarzy;
+        }
+    }
+
+    static final class StanWyciagu {
+        final String nazwa;
+        final String trasa;
+        final int naWyciagu;
+        final int wKolejce;
+        final WyciagStatus status;
+        final boolean serwisOczekuje; // Serwis zaplanowany, wyciąg dowozi jeszcze ostatnich narciarzy
+        final long przejazdy;
+        final int serwisy;
+        final double przejazdyNaMinute;
+        final long oczekiwanieP50Ms;
+        final long oczekiwanieP99Ms;
+        final long oczekiwanieMaxMs;
+        final double wypelnienie;
+        final long utraconeMiejsca;
+        final long czasNiedostepnosciMs;
+        final long najdluzszaKolejka;
+        final long odrzucenia; // Rezygnacje z pełnej kolejki (maxKolejka)
+        final long przekierowania;
+
+        StanWyciagu(Wyciag w, int naWyciagu) {
+            this.nazwa = w.name;
+            this.trasa = w.trasa.name;
+            this.naWyciagu = naWyciagu;
+            this.wKolejce = w.kolejkaOczekujacych.size();
+            this.status = w.getStatus();
+            this.serwisOczekuje = w.isMaintenancePending();
+            this.przejazdy = w.getPrzejazdy();
+            this.serwisy = w.getLiczbaSerwisow();
+            this.przejazdyNaMinute = w.getPrzejazdyNaMinute();
+            MetrykiWyciagu m = w.metryki;
+            this.oczekiwanieP50Ms = m.czasOczekiwania.percentyl(0.5);
+            this.oczekiwanieP99Ms = m.czasOczekiwania.percentyl(0.99);
+            this.oczekiwanieMaxMs = m.czasOczekiwania.getMax();
+            this.wypelnienie = m.getWypelnienie();
+            this.utraconeMiejsca = m.getUtraconeMiejsca();
+            this.czasNiedostepnosciMs = m.getCzasNiedostepnosci();
+            this.najdluzszaKolejka = m.getNajdluzszaKolejka();
+            this.odrzucenia = m.getOdrzucenia();
+            this.przekierowania = m.getPrzekierowania();
+        }
+    }
+
+    static final class StanTrasy {
+        final String nazwa;
+        final int czasZjazdu; // s, 0 - trasa tylko pod wyciągiem
+        final int naTrasie;
+        final long zjazdy;
+
+        StanTrasy(String nazwa, int czasZjazdu, int naTrasie, long zjazdy) {
+            this.nazwa = nazwa;
+            this.czasZjazdu = czasZjazdu;
+            this.naTrasie = naTrasie;
+            this.zjazdy = zjazdy;
+        }
+    }
+
+    final long epoka; // Numer kolejnej migawki
+    final long czasUtworzenia; // System.currentTimeMillis()
+    final boolean spojna; // false - nie udało się trafić w chwilę bez trwających przejść, liczniki mogą się nie sumować
+    final List<StanStacji> stacje;
+    final List<StanWyciagu> wyciagi;
+    final List<StanTrasy> trasy;
+    final int naStacjach;
+    final int naWyciagach;
+    final int naTrasach;
+
+    MigawkaStoku(long epoka, long czasUtworzenia, boolean spojna,
+                 List<StanStacji> stacje, List<StanWyciagu> wyciagi, List<StanTrasy> trasy) {
+        this.epoka = epoka;
+        this.czasUtworzenia = czasUtworzenia;
+        this.spojna = spojna;
+        this.stacje = List.copyOf(stacje);
+        this.wyciagi = List.copyOf(wyciagi);
+        this.trasy = List.copyOf(trasy);
+        this.naStacjach = this.stacje.stream().mapToInt(s -> s.narciarzy).sum();
+        this.naWyciagach = this.wyciagi.stream().mapToInt(w -> w.naWyciagu).sum();
+        this.naTrasach = this.trasy.stream().mapToInt(t -> t.naTrasie).sum();
+    }
+}
@@ -0,0 +1,279 @@
+package org.code;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Odtwarzanie binarnego śladu zdarzeń (SladZdarzen) na świeżym modelu stoku - bez wątków narciarzy, bez losowania
+// i bez harmonogramu. Zdarzenia są nakładane na prawdziwe obiekty Stacja / Wyciag / Trasa / Narciarz w kolejności
+// zapisu, więc raport, migawki i GUI działają na odtworzonym przebiegu tak samo jak na żywej symulacji.
+// tempo = 0 - jak najszybciej (np. raport), tempo > 0 - w czasie rzeczywistym przeskalowanym przez tempo (GUI).
+// Przykład: java -cp ski-resort-simulation.jar org.code.OdtwarzaczSladu --slad dzien.slad --raport dzien.csv
+public class OdtwarzaczSladu implements PlanistaWyciagow {
+
+    private static final String UZYCIE = """
+            Użycie: OdtwarzaczSladu --slad <plik> [opcje]
+              --slad <plik>        plik śladu zapisany przez symulację (config "slad" albo TrybWsadowy --slad)
+              --tempo <x>          przyspieszenie względem czasu zapisu (domyślnie 0 - jak najszybciej)
+              --raport <plik>      plik raportu .json lub .csv (domyślnie JSON na standardowe wyjście)
+            """;
+
+    private static final Status[] STATUSY = Status.values();
+
+    final SkiResortSimulation symulacja; // Model zbudowany z konfiguracji zapisanej w nagłówku śladu
+    private final DataInputStream wejscie;
+    private final double tempo;
+    private final Wyciag[] wyciagNarciarza; // Wyciąg, którym narciarz aktualnie jedzie (null - poza wyciągiem)
+    private final List<List<Narciarz>> wsiadajacy = new ArrayList<>(); // Grupa kompletowana do zdarzenia ODJAZD
+    private volatile long teraz; // Czas ostatniego odtworzonego zdarzenia
+    private long poczatekSladu = Long.MIN_VALUE; // Czas zdarzenia START
+    private long poczatekOdtwarzania; // System.nanoTime() w chwili odtworzenia START
+    private volatile boolean zakonczone = false;
+    private long liczbaZdarzen = 0;
+
+    public OdtwarzaczSladu(Path plik, double tempo) throws IOException {
+        this.tempo = tempo;
+        wejscie = new DataInputStream(new BufferedInputStream(Files.newInputStream(plik), 1 << 16));
+        if (wejscie.readLong() != SladZdarzen.MAGIA) {
+            wejscie.close();
+            throw new IOException("To nie jest plik śladu zdarzeń: " + plik);
+        }
+        int wersja = wejscie.readInt();
+        if (wersja < 1 || wersja > SladZdarzen.WERSJA) {
+            wejscie.close();
+            throw new IOException("Nieobsługiwana wersja śladu: " + wersja);
+        }
+        byte[] konfiguracja = new byte[wejscie.readInt()];
+        wejscie.readFully(konfiguracja);
+        // Ten sam czytnik co przy zwykłym starcie - domyślne wartości i sprawdzenie zakresów, a uszkodzony nagłówek
+        // daje BladKonfiguracji z miejscem w dokumencie zamiast niespójnego modelu
+        SkiResortSimulation.Config cfg;
+        try {
+            cfg = CzytnikKonfiguracji.wczytaj(new StringReader(new String(konfiguracja, StandardCharsets.UTF_8)),
+                    "<ślad " + plik + ">");
+        } catch (BladKonfiguracji e) {
+            wejscie.close();
+            throw e;
+        }
+        cfg.slad = null; // Odtworzenie nie zapisuje nowego śladu
+
+        symulacja = new SkiResortSimulation(cfg);
+        symulacja.zegar = this;
+        wyciagNarciarza = new Wyciag[symulacja.narciarze.size()];
+        for (int i = 0; i < symulacja.wyciagi.size(); i++) {
+            wsiadajacy.add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public long teraz() {
+        // Przy odtwarzaniu w tempie zegar płynie między zdarzeniami - animacja w GUI nie skacze co zdarzenie
+        if (tempo > 0 && !zakonczone && poczatekSladu != Long.MIN_VALUE) {
+            return poczatekSladu + (long) ((System.nanoTime() - poczatekOdtwarzania) / 1_000_000.0 * tempo);
+        }
+        return teraz;
+    }
+
+    public long getLiczbaZdarzen() {
+        return liczbaZdarzen;
+    }
+
+    // Odtworzenie całego śladu (do zdarzenia KONIEC albo do końca pliku, jeśli zapis został przerwany)
+    public void odtworz() throws IOException, InterruptedException {
+        if (tempo > 0) symulacja.migawki.uruchom(symulacja.cfg.okresMigawkiMs);
+        try (DataInputStream in = wejscie) {
+            while (true) {
+                long czas;
+                try {
+                    czas = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                long naglowek = in.readLong();
+                long dodatkowe = in.readLong();
+                int typ = (int) (naglowek >>> 56);
+                int obiekt = (int) ((naglowek >>> 32) & 0xFFFFFF);
+                int narciarz = (int) naglowek;
+                liczbaZdarzen++;
+
+                if (typ == SladZdarzen.TRASA) {
+                    odtworzTrase(obiekt, dodatkowe); // Bez czasu - trasa istnieje od chwili utworzenia
+                    continue;
+                }
+                if (tempo > 0 && poczatekSladu != Long.MIN_VALUE) {
+                    czekajDo(czas);
+                }
+                teraz = Math.max(teraz, czas); // W trybie wątkowym zapisy różnych wątków mogą się minimalnie przeplatać
+                if (typ == SladZdarzen.KONIEC) break;
+                odtworzZdarzenie(typ, czas, obiekt, narciarz, dodatkowe);
+            }
+        } finally {
+            zakonczone = true;
+            symulacja.migawki.zatrzymaj();
+            symulacja.migawki.opublikuj(); // Stan końcowy
+        }
+    }
+
+    private void czekajDo(long czas) throws InterruptedException {
+        long celNanos = poczatekOdtwarzania + (long) ((czas - poczatekSladu) / tempo * 1_000_000);
+        long zostalo = celNanos - System.nanoTime();
+        if (zostalo > 1_000_000) {
+            Thread.sleep(zostalo / 1_000_000);
+        }
+    }
+
+    private void odtworzZdarzenie(int typ, long czas, int obiekt, int id, long dodatkowe) {
+        switch (typ) {
+            case SladZdarzen.START -> {
+                poczatekSladu = czas;
+                poczatekOdtwarzania = System.nanoTime();
+                teraz = czas;
+                for (Wyciag w : symulacja.wyciagi) {
+                    w.start(this);
+                }
+            }
+            case SladZdarzen.STATUS -> odtworzStatus(narciarz(id), STATUSY[(int) dodatkowe], obiekt, czas);
+            case SladZdarzen.KOLEJKA -> symulacja.wyciagi.get(obiekt).odtworzDolaczenie(narciarz(id), czas,
+                    PasWsiadania.values()[(int) dodatkowe]);
+            case SladZdarzen.ODJAZD -> {
+                List<Narciarz> grupa = wsiadajacy.get(obiekt);
+                symulacja.wyciagi.get(obiekt).odtworzOdjazd(czas, grupa.toArray(new Narciarz[0]));
+                grupa.clear();
+            }
+            case SladZdarzen.SERWIS_OCZEKUJE -> symulacja.wyciagi.get(obiekt).odtworzOczekiwanieNaSerwis(czas);
+            case SladZdarzen.SERWIS_START -> symulacja.wyciagi.get(obiekt).rozpocznijSerwis();
+            case SladZdarzen.SERWIS_KONIEC ->
+                    symulacja.wyciagi.get(obiekt).odtworzSerwis(czas, dodatkowe & 0xFFFFFFFFL, dodatkowe >>> 32);
+            case SladZdarzen.ODRZUCENIE -> symulacja.wyciagi.get(obiekt).metryki.zapiszOdrzucenie();
+            case SladZdarzen.PRZEKIEROWANIE -> symulacja.wyciagi.get(obiekt).metryki.zapiszPrzekierowanie();
+            default -> throw new IllegalStateException("Nieznany typ zdarzenia w śladzie: " + typ);
+        }
+    }
+
+    private Narciarz narciarz(int id) {
+        return symulacja.narciarze.get(id - 1); // Numeracja narciarzy od 1
+    }
+
+    // Zmiana statusu wyznacza przejście narciarza między licznikami - rodzaj przejścia wynika z poprzedniego stanu
+    private void odtworzStatus(Narciarz nar, Status status, int obiekt, long czas) {
+        switch (status) {
+            case ON_LIFT -> {
+                Wyciag w = symulacja.wyciagi.get(obiekt);
+                w.odtworzWsiadanie(nar, czas);
+                wyciagNarciarza[nar.id - 1] = w;
+                wsiadajacy.get(obiekt).add(nar);
+            }
+            case AT_STATION -> {
+                Wyciag w = wyciagNarciarza[nar.id - 1];
+                if (w != null) { // Przybycie wyciągiem na górną stację
+                    wyciagNarciarza[nar.id - 1] = null;
+                    nar.aktualnaStacja = w.trasa.stacjaGorna;
+                    w.odtworzWysiadanie(nar);
+                } else { // Przerwa na stacji - bez zmiany liczników
+                    nar.status = Status.AT_STATION;
+                }
+            }
+            case SKIING -> nar.rozpocznijZjazd(symulacja.trasy.get(obiekt), czas);
+            case WAITING -> {
+                Trasa zjazd = nar.aktualnyZjazd;
+                if (zjazd != null) {
+                    nar.zakonczZjazd(zjazd, symulacja.stacje.get(obiekt), czas);
+                } else {
+                    nar.status = Status.WAITING;
+                }
+            }
+        }
+    }
+
+    // Trasa utworzona w trakcie symulacji - ten sam indeks i czas zjazdu co w zapisanym przebiegu
+    private void odtworzTrase(int indeks, long dodatkowe) {
+        if (indeks < symulacja.trasy.size()) return;
+        Stacja s1 = symulacja.stacje.get((int) (dodatkowe >>> 48));
+        Stacja s2 = symulacja.stacje.get((int) ((dodatkowe >>> 32) & 0xFFFF));
+        symulacja.indeksTras.dodaj(new Trasa(s1.nazwa + "-" + s2.nazwa, s1, s2, (int) dodatkowe));
+    }
+
+    // Odtwarzacz nie planuje niczego sam - wszystkie decyzje są już w śladzie
+    @Override
+    public void zaplanuj(Wyciag w, long czas) {
+    }
+
+    @Override
+    public void dojechal(Narciarz nar, Wyciag w) {
+    }
+
+    @Override
+    public void serwisRozpoczety(Wyciag w) {
+    }
+
+    @Override
+    public void serwisZakonczony(Wyciag w) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String sciezkaSladu = null;
+        String sciezkaRaportu = null;
+        double tempo = 0;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--slad" -> sciezkaSladu = args[++i];
+                    case "--tempo" -> tempo = Double.parseDouble(args[++i]);
+                    case "--raport" -> sciezkaRaportu = args[++i];
+                    case "--help", "-h" -> {
+                        System.out.print(UZYCIE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Nieznana opcja: " + args[i]);
+                }
+            }
+            if (sciezkaSladu == null) throw new IllegalArgumentException("Brak pliku śladu (--slad)");
+            if (tempo < 0) throw new IllegalArgumentException("Tempo nie może być ujemne");
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            String powod = e instanceof ArrayIndexOutOfBoundsException ? "Brak wartości opcji" : e.getMessage();
+            System.err.println(powod);
+            System.err.print(UZYCIE);
+            System.exit(2);
+        }
+
+        OdtwarzaczSladu odtwarzacz;
+        try {
+            odtwarzacz = new OdtwarzaczSladu(Path.of(sciezkaSladu), tempo);
+        } catch (BladKonfiguracji e) {
+            System.err.println("Błąd konfiguracji: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        long start = System.nanoTime();
+        odtwarzacz.odtworz();
+        long czasWykonaniaMs = (System.nanoTime() - start) / 1_000_000;
+        System.err.println("Odtworzono " + odtwarzacz.getLiczbaZdarzen() + " zdarzeń w " + czasWykonaniaMs + " ms");
+
+        SkiResortSimulation symulacja = odtwarzacz.symulacja;
+        RaportSymulacji raport = RaportSymulacji.zbierz(symulacja.stacje, symulacja.wyciagi, symulacja.trasy);
+        raport.silnik = symulacja.cfg.silnik;
+        raport.liczbaNarciarzy = symulacja.cfg.liczbaNarciarzy;
+        raport.czasSymulacjiS = symulacja.cfg.czasSymulacji;
+        raport.czasWykonaniaMs = czasWykonaniaMs;
+        raport.seed = symulacja.cfg.seed;
+
+        if (sciezkaRaportu == null) {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            raport.zapiszJson(out);
+            out.flush();
+        } else {
+            try (Writer out = new BufferedWriter(new FileWriter(sciezkaRaportu, StandardCharsets.UTF_8))) {
+                if (sciezkaRaportu.toLowerCase().endsWith(".csv")) {
+                    raport.zapiszCsv(out);
+                } else {
+                    raport.zapiszJson(out);
+                }
+            }
+            System.out.println("Raport zapisany: " + sciezkaRaportu);
+        }
+    }
+}
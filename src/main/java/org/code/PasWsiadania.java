@@ -0,0 +1,21 @@
+package org.code;
+
+// Pas wsiadania do wyciągu - kolejność stałych to numer pasa w śladzie zdarzeń i punkcie kontrolnym
+enum PasWsiadania {
+    ZWYKLY("zwykly"), // grupy, które przyszły razem, wsiadają razem
+    POJEDYNCZY("pojedynczy"), // narciarze jadący sami - zajmują wolne miejsca obok grup
+    PRIORYTET("priorytet"); // szkółki, karnety VIP - najwyżej połowa krzesełka, gdy czekają inni
+
+    final String nazwa; // Nazwa w konfiguracji i raporcie
+
+    PasWsiadania(String nazwa) {
+        this.nazwa = nazwa;
+    }
+
+    static PasWsiadania zNazwy(String nazwa) {
+        for (PasWsiadania p : values()) {
+            if (p.nazwa.equalsIgnoreCase(nazwa)) return p;
+        }
+        return null;
+    }
+}
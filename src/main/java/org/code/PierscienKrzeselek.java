@@ -0,0 +1,140 @@
+package org.code;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+// Krzesełka (gondole) wyciągu jako stały pierścień: liczba jednostek i miejsc jest znana z konfiguracji, więc pamięć
+// jest zaalokowana raz przy budowie wyciągu. Jednostki jadą w kolejności odjazdu (każda tyle samo - interval), więc
+// pierwsza w pierścieniu dojedzie najwcześniej. Wsiadanie zapełnia siedzenia wolnej jednostki na dolnej stacji,
+// wysiadanie zdejmuje całą jednostkę w O(1) - bez alokacji i bez kopiowania grup.
+//
+// Jednostek jest min(capacity, ceil(interval / globalBoardingInterval) + 1): odjazdy są co najmniej co
+// globalBoardingInterval, a jednostka, która dojechała, jest rozładowana przed kolejnym wsiadaniem; każda jadąca
+// wiezie kogoś, więc więcej niż capacity jednostek też nie jedzie.
+//
+// Zmienia go jeden piszący (wyciąg pod swoim monitorem albo odtwarzacz śladu). GUI czyta stan przez kopiuj() bez
+// blokowania - licznik wersji (seqlock): nieparzysty w trakcie zmiany, odczyt jest powtarzany, gdy wersja się zmieniła.
+class PierscienKrzeselek {
+    final int liczba; // Liczba jednostek
+    final int miejsc; // Siedzenia w jednostce (boardingGroupSize)
+    private final Narciarz[][] siedzenia;
+    private final int[] zajete; // Zajęte siedzenia jednostki (od początku tablicy siedzeń)
+    private final long[] przybycie; // Czas przybycia jednostki na górną stację
+    private int pierwszy; // Jednostka najbliżej górnej stacji
+    private int jadace; // Liczba jadących jednostek
+    private volatile int wersja;
+
+    PierscienKrzeselek(int capacity, int interval, int boardingGroupSize, int globalBoardingInterval) {
+        long naTrasie = ((long) interval + globalBoardingInterval - 1) / Math.max(1, globalBoardingInterval) + 1;
+        liczba = (int) Math.max(1, Math.min(capacity, naTrasie));
+        miejsc = boardingGroupSize;
+        siedzenia = new Narciarz[liczba][boardingGroupSize];
+        zajete = new int[liczba];
+        przybycie = new long[liczba];
+    }
+
+    int size() {
+        return jadace;
+    }
+
+    boolean isEmpty() {
+        return jadace == 0;
+    }
+
+    // Na dolnej stacji nie ma wolnej jednostki (wszystkie jadą)
+    boolean pelny() {
+        return jadace == liczba;
+    }
+
+    // Siedzenia jednostki czekającej na dolnej stacji - wsiadający wpisywani są wprost do niej, odjazd() ją wysyła
+    Narciarz[] wolna() {
+        return siedzenia[indeks(jadace)];
+    }
+
+    void odjazd(int wsiadlo, long czasPrzybycia) {
+        int i = indeks(jadace);
+        int w = wersja;
+        wersja = w + 1;
+        VarHandle.storeStoreFence();
+        zajete[i] = wsiadlo;
+        przybycie[i] = czasPrzybycia;
+        jadace++;
+        wersja = w + 2;
+    }
+
+    // Czas przybycia najbliższej jednostki na górę (Long.MAX_VALUE, gdy nic nie jedzie)
+    long najblizszePrzybycie() {
+        return jadace == 0 ? Long.MAX_VALUE : przybycie[pierwszy];
+    }
+
+    // Siedzenia i liczba zajętych w jednostce dojeżdżającej najwcześniej (jadace > 0)
+    Narciarz[] siedzeniaPierwszej() {
+        return siedzenia[pierwszy];
+    }
+
+    int zajetePierwszej() {
+        return zajete[pierwszy];
+    }
+
+    // Jednostka wysiadła na górze - wraca na dół pusta. Siedzenia nie są czyszczone, nadpisze je następne wsiadanie
+    void wysiadka() {
+        int w = wersja;
+        wersja = w + 1;
+        VarHandle.storeStoreFence();
+        zajete[pierwszy] = 0;
+        pierwszy = indeks(1);
+        jadace--;
+        wersja = w + 2;
+    }
+
+    void clear() {
+        int w = wersja;
+        wersja = w + 1;
+        VarHandle.storeStoreFence();
+        for (int i = 0; i < liczba; i++) {
+            zajete[i] = 0;
+            Arrays.fill(siedzenia[i], null);
+        }
+        pierwszy = 0;
+        jadace = 0;
+        wersja = w + 2;
+    }
+
+    // Dostęp do k-tej jadącej jednostki (od najbliższej górnej stacji) - punkt kontrolny, tylko piszący
+    long przybycie(int k) {
+        return przybycie[indeks(k)];
+    }
+
+    int zajete(int k) {
+        return zajete[indeks(k)];
+    }
+
+    Narciarz[] siedzenia(int k) {
+        return siedzenia[indeks(k)];
+    }
+
+    // Kopia czasów przybycia i zajętości jadących jednostek (tablice długości liczba) - zwraca liczbę jednostek.
+    // Dla czytających spoza wyciągu (GUI), bez blokowania piszącego
+    int kopiuj(long[] czasyPrzybycia, int[] zajetosc) {
+        while (true) {
+            int w = wersja;
+            if ((w & 1) == 0) {
+                int p = pierwszy;
+                int n = jadace;
+                for (int k = 0; k < n; k++) {
+                    int i = (p + k) % liczba;
+                    czasyPrzybycia[k] = przybycie[i];
+                    zajetosc[k] = zajete[i];
+                }
+                VarHandle.acquireFence();
+                if (wersja == w) return n;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private int indeks(int k) {
+        int i = pierwszy + k;
+        return i >= liczba ? i - liczba : i;
+    }
+}
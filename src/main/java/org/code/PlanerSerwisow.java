@@ -0,0 +1,192 @@
+package org.code;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Wspólny planer serwisów stoku. Bez planowania (serwisy "niezalezne") każdy wyciąg idzie do serwisu, gdy minie
+// maintenanceTime od poprzedniego, a planer tylko liczy czas odcięcia stacji. Przy serwisach "planowane":
+//  - terminy są na stałej siatce co maintenanceTime + maintenanceDuration + interval (najdłuższy cykl bez planera,
+//    z opróżnianiem wyciągu), więc przesunięty serwis nie przesuwa kolejnych,
+//  - od terminu serwis czeka na chwilę małego ruchu - kolejkę nie dłuższą niż jej średnia z ostatnich chwil - ale
+//    najwyżej opoznienieSerwisu * maintenanceTime; później zaczyna się bez względu na kolejkę,
+//  - nigdy nie wyłączamy ostatniego działającego wyciągu z grupy: wszystkich wjeżdżających na stację albo wszystkich
+//    wyjeżdżających z niej (grupy co najmniej dwóch wyciągów) - wyciąg czeka, aż inny z grupy wróci z serwisu,
+//    więc wyciągi z tym samym terminem idą do serwisu po kolei.
+// Serwis przed terminem (gdy grupa i tak będzie niedostępna) dawał w pomiarach większe straty niż czekanie.
+// Decyzje zapadają w krok() wyciągu (pod jego monitorem); stan wspólny dla wyciągów jest pod monitorem planera.
+// Kolejność blokad jest zawsze wyciąg -> planer, a planer nie woła metod synchronizowanych wyciągu.
+class PlanerSerwisow {
+    private final List<Wyciag> wyciagi;
+    private final boolean planowane;
+    private final double opoznienie; // Część maintenanceTime, o którą serwis może się opóźnić do chwili małego ruchu
+    private final int[][] grupy; // Wyciągi wjeżdżające na stację / wyjeżdżające z niej (indeksy wyciągów)
+    private final int[][] grupyWyciagu; // Grupy, do których należy wyciąg
+    private final int[] dzialajace; // Dostępne wyciągi w grupie
+    private final long[] odcietaOd; // Początek odcięcia grupy (wszystkie jej wyciągi niedostępne)
+    private final boolean[] wylaczony;
+    private long czasOdciecia; // Suma po grupach czasu bez żadnego dostępnego wyciągu (ms)
+
+    // Tylko przy planowaniu
+    private final long[] termin; // Następny termin serwisu na siatce
+    private final double[] sredniaKolejka; // Średnia długość kolejki ważona czasem
+    private final long[] czasProbki;
+
+    PlanerSerwisow(List<Stacja> stacje, List<Wyciag> wyciagi, boolean planowane, double opoznienie) {
+        this.wyciagi = wyciagi;
+        this.planowane = planowane;
+        this.opoznienie = opoznienie;
+        List<List<Integer>> doStacji = new ArrayList<>();
+        List<List<Integer>> zeStacji = new ArrayList<>();
+        for (int i = 0; i < stacje.size(); i++) {
+            doStacji.add(new ArrayList<>());
+            zeStacji.add(new ArrayList<>());
+        }
+        for (int i = 0; i < wyciagi.size(); i++) {
+            Wyciag w = wyciagi.get(i);
+            doStacji.get(w.trasa.stacjaGorna.indeks).add(i);
+            zeStacji.get(w.trasa.stacjaDolna.indeks).add(i);
+        }
+        List<int[]> wszystkie = new ArrayList<>();
+        for (int s = 0; s < stacje.size(); s++) {
+            if (!doStacji.get(s).isEmpty()) wszystkie.add(doStacji.get(s).stream().mapToInt(Integer::intValue).toArray());
+            if (!zeStacji.get(s).isEmpty()) wszystkie.add(zeStacji.get(s).stream().mapToInt(Integer::intValue).toArray());
+        }
+        grupy = wszystkie.toArray(new int[0][]);
+        int[] ileGrup = new int[wyciagi.size()];
+        for (int[] g : grupy) {
+            for (int w : g) ileGrup[w]++;
+        }
+        grupyWyciagu = new int[wyciagi.size()][];
+        for (int w = 0; w < wyciagi.size(); w++) {
+            grupyWyciagu[w] = new int[ileGrup[w]];
+            ileGrup[w] = 0;
+        }
+        for (int g = 0; g < grupy.length; g++) {
+            for (int w : grupy[g]) grupyWyciagu[w][ileGrup[w]++] = g;
+        }
+        dzialajace = new int[grupy.length];
+        for (int g = 0; g < grupy.length; g++) {
+            dzialajace[g] = grupy[g].length;
+        }
+        odcietaOd = new long[grupy.length];
+        wylaczony = new boolean[wyciagi.size()];
+        termin = new long[wyciagi.size()];
+        sredniaKolejka = new double[wyciagi.size()];
+        czasProbki = new long[wyciagi.size()];
+    }
+
+    boolean isPlanowane() {
+        return planowane;
+    }
+
+    // Start wyciągu - pierwszy termin serwisu taki sam jak bez planowania
+    synchronized void start(Wyciag w, long teraz) {
+        termin[w.indeks] = teraz + w.maintenanceTime * 1000L;
+        czasProbki[w.indeks] = teraz;
+    }
+
+    // Próbka kolejki przy każdym kroku wyciągu - średnia z okna ok. maintenanceTime / 4
+    void probka(Wyciag w, long teraz) {
+        if (!planowane) return;
+        int i = w.indeks;
+        double okres = Math.max(1000.0, w.maintenanceTime * 250.0);
+        double waga = Math.min(1.0, (teraz - czasProbki[i]) / okres);
+        sredniaKolejka[i] += waga * (w.kolejkaOczekujacych.size() - sredniaKolejka[i]);
+        czasProbki[i] = teraz;
+    }
+
+    // Czy wyciąg ma teraz zacząć oczekiwanie na serwis - przy true wyciąg jest już liczony jako niedostępny
+    synchronized boolean zwolnij(Wyciag w, long teraz) {
+        int i = w.indeks;
+        if (!planowane) {
+            if (teraz < w.terminSerwisu()) return false;
+        } else {
+            if (teraz < termin[i]) return false;
+            if (teraz < termin[i] + luz(w) && w.kolejkaOczekujacych.size() > sredniaKolejka[i]) {
+                return false; // Ruch większy niż zwykle
+            }
+            for (int g : grupyWyciagu[i]) {
+                if (grupy[g].length > 1 && dzialajace[g] <= 1) return false; // Ostatni działający w grupie
+            }
+        }
+        wylacz(i, teraz);
+        return true;
+    }
+
+    // Następna chwila, w której wyciąg powinien sprawdzić serwis (bez planowania - termin liczony przez wyciąg)
+    long nastepneSprawdzenie(Wyciag w, long teraz) {
+        if (!planowane) return w.terminSerwisu();
+        long od = termin[w.indeks];
+        return teraz < od ? od : teraz + w.globalBoardingInterval * 1000L; // Po terminie - co jednostkę wyciągu
+    }
+
+    private long luz(Wyciag w) {
+        return Math.round(opoznienie * w.maintenanceTime * 1000L);
+    }
+
+    // Wyciąg przestał przyjmować narciarzy (także przy odtwarzaniu śladu) - drugie zgłoszenie nic nie zmienia
+    synchronized void wylaczony(Wyciag w, long teraz) {
+        if (!wylaczony[w.indeks]) wylacz(w.indeks, teraz);
+    }
+
+    private void wylacz(int i, long teraz) {
+        wylaczony[i] = true;
+        for (int g : grupyWyciagu[i]) {
+            if (--dzialajace[g] == 0) odcietaOd[g] = teraz;
+        }
+    }
+
+    // Koniec serwisu - następny termin na siatce, ale po co najmniej maintenanceTime pomniejszonym o luz
+    synchronized void wlaczony(Wyciag w, long teraz) {
+        int i = w.indeks;
+        if (!wylaczony[i]) return;
+        wylaczony[i] = false;
+        for (int g : grupyWyciagu[i]) {
+            if (dzialajace[g]++ == 0) czasOdciecia += teraz - odcietaOd[g];
+        }
+        long cykl = (w.maintenanceTime + (long) w.maintenanceDuration + w.interval) * 1000L;
+        termin[i] = Math.max(termin[i] + cykl, teraz + w.maintenanceTime * 1000L - luz(w));
+    }
+
+    // Łączny czas, przez który stacje nie miały żadnego działającego wyciągu na nie albo z nich (ms, do chwili teraz)
+    synchronized long getCzasOdciecia(long teraz) {
+        long suma = czasOdciecia;
+        for (int g = 0; g < grupy.length; g++) {
+            if (dzialajace[g] == 0) suma += teraz - odcietaOd[g];
+        }
+        return suma;
+    }
+
+    // Stan do punktu kontrolnego - niedostępne wyciągi odtwarzamy z ich stanu (po wczytaniu wyciągów)
+    synchronized void zapiszStan(DataOutput out) throws IOException {
+        out.writeLong(czasOdciecia);
+        for (long od : odcietaOd) {
+            out.writeLong(od);
+        }
+        for (int i = 0; i < wyciagi.size(); i++) {
+            out.writeLong(termin[i]);
+            out.writeDouble(sredniaKolejka[i]);
+            out.writeLong(czasProbki[i]);
+        }
+    }
+
+    synchronized void wczytajStan(DataInput in) throws IOException {
+        czasOdciecia = in.readLong();
+        for (int g = 0; g < grupy.length; g++) {
+            odcietaOd[g] = in.readLong();
+            dzialajace[g] = grupy[g].length;
+        }
+        for (int i = 0; i < wyciagi.size(); i++) {
+            termin[i] = in.readLong();
+            sredniaKolejka[i] = in.readDouble();
+            czasProbki[i] = in.readLong();
+            wylaczony[i] = !wyciagi.get(i).jestDostepny();
+            if (wylaczony[i]) {
+                for (int g : grupyWyciagu[i]) dzialajace[g]--;
+            }
+        }
+    }
+}
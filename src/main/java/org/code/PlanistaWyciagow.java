@@ -0,0 +1,15 @@
+package org.code;
+
+// Źródło czasu i planowanie wybudzeń wyciągów. Implementują go wspólny harmonogram wątkowy (czas rzeczywisty)
+// i silnik zdarzeniowy (czas wirtualny), dzięki czemu Wyciag.krok() działa tak samo w obu trybach.
+interface PlanistaWyciagow {
+    long teraz(); // Aktualny czas w ms
+
+    void zaplanuj(Wyciag w, long czas); // Wybudzenie wyciągu (wywołanie krok()) najpóźniej w podanej chwili
+
+    void dojechal(Narciarz nar, Wyciag w); // Narciarz dotarł wyciągiem na górną stację
+
+    void serwisRozpoczety(Wyciag w);
+
+    void serwisZakonczony(Wyciag w); // Wyciąg wznowił pracę - zaraz potem otwiera bramkę czekającym narciarzom
+}
@@ -0,0 +1,222 @@
+package org.code;
+
+import com.google.gson.Gson;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Przegląd parametrów - wiele niezależnych symulacji zdarzeniowych (każda to osobna instancja SkiResortSimulation)
+// liczonych równolegle na puli wątków, z tabelą porównawczą na koniec.
+// Przykład: java -cp ski-resort-simulation.jar org.code.PrzegladParametrow --narciarze 100:1000:300
+//           --capacity 4:8:2 --grupa 2:4:2 --czas 28800 --seed 42 --raport przeglad.csv
+public class PrzegladParametrow {
+
+    private static final String UZYCIE = """
+            Użycie: PrzegladParametrow [opcje]
+              --config <plik>        plik konfiguracji bazowej (ścieżka lub classpath:zasob.json)
+              --narciarze <zakres>   liczba narciarzy
+              --capacity <zakres>    pojemność każdego wyciągu
+              --grupa <zakres>       wielkość grupy wsiadającej na każdy wyciąg
+              --interwal <zakres>    globalny odstęp między jednostkami do wsiadania (s)
+              --czas <s>             czas symulacji w sekundach czasu stoku (domyślnie z konfiguracji)
+              --seed <liczba>        ziarno losowania - to samo dla wszystkich scenariuszy (domyślnie 1)
+              --wznow <plik>         każdy scenariusz startuje z tego samego punktu kontrolnego (rozgrzany stok)
+              --watki <N>            liczba równoległych symulacji (domyślnie liczba procesorów)
+              --raport <plik.csv>    zapis tabeli porównawczej do CSV
+            Zakres to start:koniec[:krok] albo pojedyncza wartość; brak opcji - wartość z konfiguracji.
+            """;
+
+    // Parametry jednego scenariusza i jego zagregowany wynik
+    static class Scenariusz {
+        int narciarzy;
+        int capacity;
+        int grupa;
+        int interwal;
+
+        long przejazdy;
+        double przejazdyNaMinute;
+        long maxOczekiwanieP99Ms; // Najgorszy wyciąg
+        double srednieWypelnienie;
+        long utraconeMiejsca;
+        long czasWykonaniaMs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String sciezkaConfigu = SkiResortSimulation.domyslnaKonfiguracja();
+        String sciezkaRaportu = null;
+        String wznowienie = null;
+        int[] narciarze = null;
+        int[] capacity = null;
+        int[] grupa = null;
+        int[] interwal = null;
+        Integer czas = null;
+        long seed = 1;
+        int watki = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--config" -> sciezkaConfigu = args[++i];
+                    case "--narciarze" -> narciarze = zakres(args[++i]);
+                    case "--capacity" -> capacity = zakres(args[++i]);
+                    case "--grupa" -> grupa = zakres(args[++i]);
+                    case "--interwal" -> interwal = zakres(args[++i]);
+                    case "--czas" -> czas = Integer.parseInt(args[++i]);
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--wznow" -> wznowienie = args[++i];
+                    case "--watki" -> watki = Integer.parseInt(args[++i]);
+                    case "--raport" -> sciezkaRaportu = args[++i];
+                    case "--help", "-h" -> {
+                        System.out.print(UZYCIE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Nieznana opcja: " + args[i]);
+                }
+            }
+            if (watki < 1) throw new IllegalArgumentException("Liczba wątków musi być dodatnia");
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            String powod = e instanceof ArrayIndexOutOfBoundsException ? "Brak wartości opcji" : e.getMessage();
+            System.err.println(powod);
+            System.err.print(UZYCIE);
+            System.exit(2);
+        }
+
+        SkiResortSimulation.Config bazowa;
+        try {
+            bazowa = SkiResortSimulation.wczytajKonfiguracje(sciezkaConfigu);
+        } catch (BladKonfiguracji e) {
+            System.err.println("Błąd konfiguracji: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (czas != null) bazowa.czasSymulacji = czas;
+        bazowa.seed = seed;
+        bazowa.silnik = "events";
+        bazowa.wznowienie = wznowienie;
+
+        // Brak opcji - jedna wartość z konfiguracji bazowej (dla wyciągów: z pierwszego wyciągu)
+        SkiResortSimulation.LiftCfg pierwszy = bazowa.wyciagi.get(0);
+        if (narciarze == null) narciarze = new int[]{bazowa.liczbaNarciarzy};
+        if (capacity == null) capacity = new int[]{pierwszy.capacity};
+        if (grupa == null) grupa = new int[]{pierwszy.boardingGroupSize};
+        if (interwal == null) interwal = new int[]{bazowa.globalBoardingInterval};
+
+        // Iloczyn kartezjański zakresów
+        List<Scenariusz> scenariusze = new ArrayList<>();
+        for (int n : narciarze) {
+            for (int c : capacity) {
+                for (int g : grupa) {
+                    for (int iw : interwal) {
+                        Scenariusz s = new Scenariusz();
+                        s.narciarzy = n;
+                        s.capacity = c;
+                        s.grupa = g;
+                        s.interwal = iw;
+                        scenariusze.add(s);
+                    }
+                }
+            }
+        }
+        System.err.println("Scenariuszy: " + scenariusze.size() + ", równolegle: " + watki +
+                ", czas stoku: " + bazowa.czasSymulacji + " s");
+
+        // Każdy scenariusz to osobna instancja symulacji z własną kopią konfiguracji - nic nie jest współdzielone
+        String bazowaJson = new Gson().toJson(bazowa);
+        ExecutorService pula = Executors.newFixedThreadPool(watki);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> wyniki = new ArrayList<>();
+            for (Scenariusz s : scenariusze) {
+                wyniki.add(pula.submit(() -> uruchom(s, bazowaJson)));
+            }
+            for (Future<?> f : wyniki) {
+                f.get();
+            }
+        } finally {
+            pula.shutdown();
+        }
+        long czasCalkowityMs = (System.nanoTime() - start) / 1_000_000;
+        long sumaCzasowMs = scenariusze.stream().mapToLong(s -> s.czasWykonaniaMs).sum();
+
+        wypiszTabele(scenariusze);
+        System.out.printf(Locale.ROOT, "Czas: %d ms (suma czasów scenariuszy %d ms, przyspieszenie x%.1f)%n",
+                czasCalkowityMs, sumaCzasowMs, sumaCzasowMs / (double) Math.max(1, czasCalkowityMs));
+
+        if (sciezkaRaportu != null) {
+            try (Writer out = new BufferedWriter(new FileWriter(sciezkaRaportu, StandardCharsets.UTF_8))) {
+                zapiszCsv(scenariusze, out);
+            }
+            System.out.println("Raport zapisany: " + sciezkaRaportu);
+        }
+    }
+
+    // Jedna symulacja zdarzeniowa dla scenariusza - wynik trafia do pól scenariusza
+    private static void uruchom(Scenariusz s, String bazowaJson) {
+        SkiResortSimulation.Config cfg = new Gson().fromJson(bazowaJson, SkiResortSimulation.Config.class);
+        cfg.liczbaNarciarzy = s.narciarzy;
+        cfg.globalBoardingInterval = s.interwal;
+        for (SkiResortSimulation.LiftCfg l : cfg.wyciagi) {
+            l.capacity = s.capacity;
+            l.boardingGroupSize = s.grupa;
+        }
+
+        long start = System.nanoTime();
+        SkiResortSimulation symulacja = new SkiResortSimulation(cfg);
+        symulacja.uruchomZdarzeniowo();
+        s.czasWykonaniaMs = (System.nanoTime() - start) / 1_000_000;
+
+        RaportSymulacji raport = RaportSymulacji.zbierz(symulacja.stacje, symulacja.wyciagi, symulacja.trasy);
+        double sumaWypelnienia = 0;
+        for (RaportSymulacji.WyciagRaport w : raport.wyciagi) {
+            s.przejazdy += w.przejazdy;
+            s.przejazdyNaMinute += w.przejazdyNaMinute;
+            s.maxOczekiwanieP99Ms = Math.max(s.maxOczekiwanieP99Ms, w.oczekiwanieP99Ms);
+            s.utraconeMiejsca += w.utraconeMiejsca;
+            sumaWypelnienia += w.wypelnienie;
+        }
+        s.srednieWypelnienie = raport.wyciagi.isEmpty() ? 0 : sumaWypelnienia / raport.wyciagi.size();
+    }
+
+    // "start:koniec[:krok]" albo pojedyncza liczba
+    static int[] zakres(String tekst) {
+        String[] czesci = tekst.split(":");
+        if (czesci.length > 3) throw new IllegalArgumentException("Niepoprawny zakres: " + tekst);
+        int poczatek = Integer.parseInt(czesci[0]);
+        int koniec = czesci.length > 1 ? Integer.parseInt(czesci[1]) : poczatek;
+        int krok = czesci.length > 2 ? Integer.parseInt(czesci[2]) : 1;
+        if (krok <= 0 || koniec < poczatek) throw new IllegalArgumentException("Niepoprawny zakres: " + tekst);
+        int[] wartosci = new int[(koniec - poczatek) / krok + 1];
+        for (int i = 0; i < wartosci.length; i++) {
+            wartosci[i] = poczatek + i * krok;
+        }
+        return wartosci;
+    }
+
+    private static void wypiszTabele(List<Scenariusz> scenariusze) {
+        System.out.printf(Locale.ROOT, "%9s %8s %5s %8s | %10s %9s %10s %8s %9s %8s%n",
+                "narciarzy", "capacity", "grupa", "interwal",
+                "przejazdy", "prz/min", "p99 max", "wypełn.", "utracone", "czas ms");
+        for (Scenariusz s : scenariusze) {
+            System.out.printf(Locale.ROOT, "%9d %8d %5d %8d | %10d %9.1f %8d ms %7.0f%% %9d %8d%n",
+                    s.narciarzy, s.capacity, s.grupa, s.interwal,
+                    s.przejazdy, s.przejazdyNaMinute, s.maxOczekiwanieP99Ms, s.srednieWypelnienie * 100,
+                    s.utraconeMiejsca, s.czasWykonaniaMs);
+        }
+    }
+
+    private static void zapiszCsv(List<Scenariusz> scenariusze, Writer out) throws IOException {
+        out.write("narciarzy;capacity;grupa;interwal;przejazdy;przejazdyNaMinute;maxOczekiwanieP99Ms;" +
+                "srednieWypelnienie;utraconeMiejsca;czasWykonaniaMs\n");
+        for (Scenariusz s : scenariusze) {
+            out.write(String.format(Locale.ROOT, "%d;%d;%d;%d;%d;%.2f;%d;%.3f;%d;%d%n",
+                    s.narciarzy, s.capacity, s.grupa, s.interwal, s.przejazdy, s.przejazdyNaMinute,
+                    s.maxOczekiwanieP99Ms, s.srednieWypelnienie, s.utraconeMiejsca, s.czasWykonaniaMs));
+        }
+    }
+}
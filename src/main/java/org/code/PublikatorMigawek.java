@@ -0,0 +1,103 @@
+package org.code;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*; // Programowanie wielowątkowe
+import java.util.concurrent.atomic.LongAdder;
+
+// Okresowo składa MigawkaStoku i publikuje ją przez jedną referencję volatile - czytelnicy (TUI, GUI) dostają
+// spójny stan jednym odczytem, zamiast odczytywać po kolei dziesiątki liczników.
+// Każde przejście narciarza między licznikami (stacja -> wyciąg, wyciąg -> stacja, stacja -> trasa, trasa -> stacja)
+// jest objęte poczatekPrzejscia() / koniecPrzejscia(). Publikator czyta liczniki tylko wtedy, gdy żadne przejście
+// nie trwa i żadne nie zaczęło się w trakcie odczytu (jak seqlock). Piszący nigdy nie czekają na czytelników -
+// jeśli po MAX_PROB próbach nie trafi się spokojna chwila, migawka jest publikowana z flagą spojna = false.
+class PublikatorMigawek {
+    private static final int MAX_PROB = 64;
+
+    private final List<Stacja> stacje;
+    private final List<Wyciag> wyciagi;
+    private final List<Trasa> trasy;
+    private final LongAdder rozpoczete = new LongAdder(); // Rozpoczęte przejścia
+    private final LongAdder zakonczone = new LongAdder(); // Zakończone przejścia
+    private volatile MigawkaStoku aktualna;
+    private long epoka = 0; // Zmieniana tylko w opublikuj() (synchronized)
+    private ScheduledExecutorService wykonawca;
+
+    public PublikatorMigawek(List<Stacja> stacje, List<Wyciag> wyciagi, List<Trasa> trasy) {
+        this.stacje = stacje;
+        this.wyciagi = wyciagi;
+        this.trasy = trasy;
+    }
+
+    void poczatekPrzejscia() {
+        rozpoczete.increment();
+    }
+
+    void koniecPrzejscia() {
+        zakonczone.increment();
+    }
+
+    // Ostatnio opublikowana migawka (null przed pierwszą publikacją)
+    MigawkaStoku getAktualna() {
+        return aktualna;
+    }
+
+    // Publikacja co okresMs na osobnym wątku (tryb wątkowy)
+    synchronized void uruchom(long okresMs) {
+        if (wykonawca != null) return;
+        wykonawca = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "migawki-stoku");
+            t.setDaemon(true);
+            return t;
+        });
+        wykonawca.scheduleAtFixedRate(this::opublikuj, 0, Math.max(1, okresMs), TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void zatrzymaj() {
+        if (wykonawca != null) {
+            wykonawca.shutdownNow();
+            wykonawca = null;
+        }
+    }
+
+    // Złożenie i opublikowanie nowej migawki (wywoływane też bezpośrednio, np. po symulacji zdarzeniowej)
+    synchronized MigawkaStoku opublikuj() {
+        List<Trasa> trasyTeraz = new ArrayList<>(trasy); // Trasy mogą dochodzić w trakcie symulacji
+        int[] naStacji = new int[stacje.size()];
+        int[] naWyciagu = new int[wyciagi.size()];
+        int[] naTrasie = new int[trasyTeraz.size()];
+
+        boolean spojna = false;
+        for (int proba = 0; proba < MAX_PROB && !spojna; proba++) {
+            long z = zakonczone.sum(); // Najpierw zakończone, potem rozpoczęte - inaczej mogłyby się wyrównać przypadkiem
+            long r = rozpoczete.sum();
+            if (z != r) {
+                Thread.onSpinWait(); // Trwa przejście - krótko czekamy i próbujemy ponownie
+                continue;
+            }
+            for (int i = 0; i < naStacji.length; i++) naStacji[i] = stacje.get(i).getLiczbaNarciarzy();
+            for (int i = 0; i < naWyciagu.length; i++) naWyciagu[i] = wyciagi.get(i).getNaWyciagu();
+            for (int i = 0; i < naTrasie.length; i++) naTrasie[i] = trasyTeraz.get(i).getNaTrasie();
+            spojna = rozpoczete.sum() == r; // Nikt nie zaczął przejścia w trakcie odczytu
+        }
+
+        // Pozostałe statystyki nie muszą być w przekroju - czytamy je już poza pętlą prób
+        List<MigawkaStoku.StanStacji> s = new ArrayList<>(naStacji.length);
+        for (int i = 0; i < naStacji.length; i++) {
+            s.add(new MigawkaStoku.StanStacji(stacje.get(i).nazwa, naStacji[i]));
+        }
+        List<MigawkaStoku.StanWyciagu> w = new ArrayList<>(naWyciagu.length);
+        for (int i = 0; i < naWyciagu.length; i++) {
+            w.add(new MigawkaStoku.StanWyciagu(wyciagi.get(i), naWyciagu[i]));
+        }
+        List<MigawkaStoku.StanTrasy> t = new ArrayList<>(naTrasie.length);
+        for (int i = 0; i < naTrasie.length; i++) {
+            Trasa tr = trasyTeraz.get(i);
+            t.add(new MigawkaStoku.StanTrasy(tr.name, tr.duration, naTrasie[i], tr.getZjazdy()));
+        }
+
+        MigawkaStoku m = new MigawkaStoku(++epoka, System.currentTimeMillis(), spojna, s, w, t);
+        aktualna = m;
+        return m;
+    }
+}
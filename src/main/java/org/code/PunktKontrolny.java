@@ -0,0 +1,139 @@
+package org.code;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Punkt kontrolny symulacji zdarzeniowej - pełny stan w zwartym pliku binarnym (DataOutputStream + GZIP), żeby rozgrzany
+// stok (pełne kolejki, narciarze rozłożeni po stacjach) wczytać od razu, zamiast liczyć rozgrzewkę przy każdym starcie.
+// Zapisywane są: pozycje, statusy i generatory losowe narciarzy, kolejki wyciągów w kolejności, jadące grupy z czasami
+// przybycia, timery serwisów, liczniki stacji i tras, metryki, wagi trasowania, stan planera serwisów oraz kolejka zdarzeń
+// silnika.
+// Model do wczytania budujemy z bieżącej konfiguracji - stacje, wyciągi i liczba narciarzy muszą się zgadzać, a parametry
+// wyciągów (capacity, grupa, serwisy) mogą być inne, więc eksperymenty "co jeśli" startują z tego samego rozgrzanego stanu.
+final class PunktKontrolny {
+    static final long MAGIA = 0x534B4953_54414E31L; // "SKISTAN1"
+    static final int WERSJA = 6; // 2 - wagi trasowania "kolejki", 3 - pasy wsiadania, 4 - zajętość krzesełek,
+                                 // 5 - planer serwisów, 6 - odrzucenia przy pełnej kolejce
+
+    private PunktKontrolny() {
+    }
+
+    static void zapisz(Path plik, SkiResortSimulation s, SymulacjaZdarzeniowa des) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(plik), 1 << 16)))) {
+            out.writeLong(MAGIA);
+            out.writeInt(WERSJA);
+
+            // Struktura modelu - do sprawdzenia zgodności z konfiguracją przy wczytaniu
+            out.writeInt(s.stacje.size());
+            for (Stacja st : s.stacje) {
+                out.writeUTF(st.nazwa);
+            }
+            out.writeInt(s.wyciagi.size());
+            for (Wyciag w : s.wyciagi) {
+                out.writeUTF(w.name);
+            }
+            out.writeInt(s.narciarze.size());
+
+            // Trasy (także utworzone w trakcie symulacji) i liczniki stacji
+            out.writeInt(s.trasy.size());
+            for (Trasa t : s.trasy) {
+                out.writeInt(t.stacja1.indeks);
+                out.writeInt(t.stacja2.indeks);
+                out.writeInt(t.duration);
+                out.writeInt(t.getNaTrasie());
+                out.writeLong(t.getZjazdy());
+            }
+            for (Stacja st : s.stacje) {
+                out.writeInt(st.getLiczbaNarciarzy());
+            }
+
+            for (Narciarz nar : s.narciarze) {
+                nar.zapiszStan(out);
+            }
+            // Generatory losowe przez serializację Random - bez niej wznowiony przebieg nie byłby tym samym przebiegiem
+            ByteArrayOutputStream losowe = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(losowe)) {
+                for (Narciarz nar : s.narciarze) {
+                    oos.writeObject(nar.random);
+                }
+            }
+            out.writeInt(losowe.size());
+            losowe.writeTo(out);
+
+            for (Wyciag w : s.wyciagi) {
+                w.zapiszStan(out);
+            }
+            s.tablicaTrasowania.zapiszStan(out);
+            s.planerSerwisow.zapiszStan(out);
+            des.zapiszStan(out);
+        }
+    }
+
+    static void wczytaj(Path plik, SkiResortSimulation s, SymulacjaZdarzeniowa des) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(plik), 1 << 16)))) {
+            if (in.readLong() != MAGIA) throw new IOException("To nie jest plik punktu kontrolnego: " + plik);
+            int wersja = in.readInt();
+            if (wersja != WERSJA) throw new IOException("Nieobsługiwana wersja punktu kontrolnego: " + wersja);
+
+            sprawdz(in.readInt() == s.stacje.size(), "inna liczba stacji");
+            for (Stacja st : s.stacje) {
+                String nazwa = in.readUTF();
+                sprawdz(nazwa.equals(st.nazwa), "stacja " + nazwa + " zamiast " + st.nazwa);
+            }
+            sprawdz(in.readInt() == s.wyciagi.size(), "inna liczba wyciągów");
+            for (Wyciag w : s.wyciagi) {
+                String nazwa = in.readUTF();
+                sprawdz(nazwa.equals(w.name), "wyciąg " + nazwa + " zamiast " + w.name);
+            }
+            sprawdz(in.readInt() == s.narciarze.size(), "inna liczba narciarzy");
+
+            int tras = in.readInt();
+            sprawdz(tras >= s.trasy.size(), "mniej tras niż w konfiguracji");
+            for (int i = 0; i < tras; i++) {
+                Stacja s1 = s.stacje.get(in.readInt());
+                Stacja s2 = s.stacje.get(in.readInt());
+                int czasZjazdu = in.readInt();
+                if (i >= s.trasy.size()) { // Trasa utworzona w trakcie symulacji
+                    s.indeksTras.dodaj(new Trasa(s1.nazwa + "-" + s2.nazwa, s1, s2, czasZjazdu));
+                }
+                Trasa t = s.trasy.get(i);
+                sprawdz(t.stacja1 == s1 && t.stacja2 == s2, "trasa " + t.name + " ma inne stacje");
+                t.przywrocLiczniki(in.readInt(), in.readLong());
+            }
+            for (Stacja st : s.stacje) {
+                st.przywrocLiczbe(in.readInt());
+            }
+
+            for (Narciarz nar : s.narciarze) {
+                nar.wczytajStan(in);
+            }
+            byte[] losowe = new byte[in.readInt()];
+            in.readFully(losowe);
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(losowe))) {
+                ois.setObjectInputFilter(ObjectInputFilter.Config.createFilter("java.util.Random;!*"));
+                for (Narciarz nar : s.narciarze) {
+                    nar.random = (Random) ois.readObject();
+                }
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Uszkodzony punkt kontrolny", e);
+            }
+
+            for (Wyciag w : s.wyciagi) {
+                w.wczytajStan(in, s.narciarze, des);
+            }
+            s.tablicaTrasowania.wczytajStan(in);
+            s.planerSerwisow.wczytajStan(in);
+            des.wczytajStan(in, s.stacje, s.trasy);
+        }
+    }
+
+    private static void sprawdz(boolean warunek, String opis) throws IOException {
+        if (!warunek) throw new IOException("Punkt kontrolny nie pasuje do konfiguracji: " + opis);
+    }
+}
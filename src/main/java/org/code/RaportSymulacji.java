@@ -0,0 +1,171 @@
+package org.code;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Raport końcowy symulacji - statystyki stacji, wyciągów i tras zapisywane jako JSON lub CSV
+class RaportSymulacji {
+
+    static class StacjaRaport {
+        String nazwa;
+        int narciarzy; // Liczba narciarzy na stacji w chwili zakończenia
+    }
+
+    static class WyciagRaport {
+        String nazwa;
+        String trasa;
+        long przejazdy;
+        double przejazdyNaMinute;
+        int serwisy;
+        long oczekiwanieP50Ms;
+        long oczekiwanieP99Ms;
+        long oczekiwanieMaxMs;
+        double wypelnienie; // 0.0 - 1.0
+        long[] odjazdyWgZajetosci; // [k] - odjazdy krzesełek z k zajętymi miejscami (tylko JSON)
+        long utraconeMiejsca; // Miejsca utracone przez serwis
+        int naWyciagu; // W chwili zakończenia
+        int wKolejce; // W chwili zakończenia
+        int maxKolejka; // Limit kolejki (0 - bez limitu)
+        long najdluzszaKolejka;
+        long odrzucenia; // Rezygnacje z pełnej kolejki
+        long przekierowania; // Odrzuceni, którzy ruszyli inną drogą (zjazd albo inny wyciąg)
+        List<PasRaport> pasy; // Tylko dla wyciągów z kilkoma pasami wsiadania
+    }
+
+    static class PasRaport {
+        String pas;
+        long wsiadlo;
+        double wsiadaniaNaMinute;
+        long oczekiwanieP50Ms;
+        long oczekiwanieP99Ms;
+        long oczekiwanieMaxMs;
+        double wypelnienie; // Część oferowanych miejsc zajęta przez ten pas
+        int wKolejce;
+    }
+
+    // Jeden przebieg porównania serwisów (TrybWsadowy --porownaj-serwisy) - strata względem stoku bez serwisów
+    static class SerwisyRaport {
+        String serwisy; // "brak", "niezalezne" lub "planowane"
+        long przejazdy;
+        long strataPrzejazdow; // Przejazdy bez serwisów minus przejazdy w tym trybie
+        double strataProcent;
+        int liczbaSerwisow;
+        long utraconeMiejsca;
+        double czasOdcieciaStacjiS;
+    }
+
+    static class TrasaRaport {
+        String nazwa;
+        int czasZjazdu; // s
+        long zjazdy;
+        int naTrasie; // W chwili zakończenia
+    }
+
+    String silnik;
+    int liczbaNarciarzy;
+    long czasSymulacjiS; // Czas stoku (rzeczywisty lub wirtualny)
+    long czasWykonaniaMs; // Ile trwało wykonanie
+    Long seed;
+    String serwisy; // Tryb serwisów ("niezalezne" / "planowane")
+    double czasOdcieciaStacjiS; // Suma po stacjach czasu bez działającego wyciągu na stację albo ze stacji
+    List<SerwisyRaport> porownanieSerwisow; // Tylko przy --porownaj-serwisy
+    List<StacjaRaport> stacje = new ArrayList<>();
+    List<WyciagRaport> wyciagi = new ArrayList<>();
+    List<TrasaRaport> trasy = new ArrayList<>();
+
+    // Zebranie statystyk z aktualnego modelu symulacji
+    static RaportSymulacji zbierz(List<Stacja> stacje, List<Wyciag> wyciagi, List<Trasa> trasy) {
+        RaportSymulacji r = new RaportSymulacji();
+        for (Stacja st : stacje) {
+            StacjaRaport s = new StacjaRaport();
+            s.nazwa = st.nazwa;
+            s.narciarzy = st.getLiczbaNarciarzy();
+            r.stacje.add(s);
+        }
+        for (Wyciag w : wyciagi) {
+            WyciagRaport wr = new WyciagRaport();
+            wr.nazwa = w.name;
+            wr.trasa = w.trasa.name;
+            wr.przejazdy = w.getPrzejazdy();
+            wr.przejazdyNaMinute = w.getPrzejazdyNaMinute();
+            wr.serwisy = w.getLiczbaSerwisow();
+            wr.oczekiwanieP50Ms = w.metryki.czasOczekiwania.percentyl(0.5);
+            wr.oczekiwanieP99Ms = w.metryki.czasOczekiwania.percentyl(0.99);
+            wr.oczekiwanieMaxMs = w.metryki.czasOczekiwania.getMax();
+            wr.wypelnienie = w.metryki.getWypelnienie();
+            wr.odjazdyWgZajetosci = w.metryki.getOdjazdyWgZajetosci();
+            wr.utraconeMiejsca = w.metryki.getUtraconeMiejsca();
+            wr.naWyciagu = w.getNaWyciagu();
+            wr.wKolejce = w.kolejkaOczekujacych.size();
+            wr.maxKolejka = w.maxKolejka;
+            wr.najdluzszaKolejka = w.metryki.getNajdluzszaKolejka();
+            wr.odrzucenia = w.metryki.getOdrzucenia();
+            wr.przekierowania = w.metryki.getPrzekierowania();
+            for (int i = 0; i < w.metryki.getLiczbaPasow(); i++) {
+                PasRaport pr = new PasRaport();
+                pr.pas = w.kolejkaOczekujacych.pasy[i].nazwa;
+                pr.wsiadlo = w.metryki.getWsiadloPasem(i);
+                pr.wsiadaniaNaMinute = w.getWsiadaniaNaMinute(i);
+                pr.oczekiwanieP50Ms = w.metryki.getOczekiwaniePasa(i).percentyl(0.5);
+                pr.oczekiwanieP99Ms = w.metryki.getOczekiwaniePasa(i).percentyl(0.99);
+                pr.oczekiwanieMaxMs = w.metryki.getOczekiwaniePasa(i).getMax();
+                pr.wypelnienie = w.metryki.getWypelnieniePasa(i);
+                pr.wKolejce = w.kolejkaOczekujacych.kolejka(i).size();
+                if (wr.pasy == null) wr.pasy = new ArrayList<>();
+                wr.pasy.add(pr);
+            }
+            r.wyciagi.add(wr);
+        }
+        for (Trasa t : trasy) {
+            if (t.duration > 0) { // Tylko trasy zjazdowe
+                TrasaRaport tr = new TrasaRaport();
+                tr.nazwa = t.name;
+                tr.czasZjazdu = t.duration;
+                tr.zjazdy = t.getZjazdy();
+                tr.naTrasie = t.getNaTrasie();
+                r.trasy.add(tr);
+            }
+        }
+        return r;
+    }
+
+    void zapiszJson(Writer out) throws IOException {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        gson.toJson(this, out);
+        out.write(System.lineSeparator());
+    }
+
+    // Jedna tabela CSV - wspólne kolumny dla stacji, wyciągów i tras (puste, gdy nie dotyczy).
+    // Pasy wsiadania to wiersze "pas" pod wyciągiem: nazwa wyciąg:pas, wsiadający, wsiadający na minutę, czasy
+    // oczekiwania, część miejsc zajęta przez pas i długość kolejki pasa. Odrzucenia i przekierowania przy pełnej
+    // kolejce są w ostatnich kolumnach wierszy wyciągów
+    void zapiszCsv(Writer out) throws IOException {
+        out.write("typ,nazwa,trasa,narciarzy,przejazdy,przejazdy_na_min,serwisy,oczekiwanie_p50_ms,oczekiwanie_p99_ms," +
+                "oczekiwanie_max_ms,wypelnienie,utracone_miejsca,w_kolejce,czas_zjazdu_s,zjazdy,odrzucenia,przekierowania\n");
+        for (StacjaRaport s : stacje) {
+            out.write(String.format(Locale.ROOT, "stacja,%s,,%d,,,,,,,,,,,,,%n", s.nazwa, s.narciarzy));
+        }
+        for (WyciagRaport w : wyciagi) {
+            out.write(String.format(Locale.ROOT, "wyciag,%s,%s,%d,%d,%.2f,%d,%d,%d,%d,%.3f,%d,%d,,,%d,%d%n",
+                    w.nazwa, w.trasa, w.naWyciagu, w.przejazdy, w.przejazdyNaMinute, w.serwisy, w.oczekiwanieP50Ms,
+                    w.oczekiwanieP99Ms, w.oczekiwanieMaxMs, w.wypelnienie, w.utraconeMiejsca, w.wKolejce,
+                    w.odrzucenia, w.przekierowania));
+            if (w.pasy == null) continue;
+            for (PasRaport p : w.pasy) {
+                out.write(String.format(Locale.ROOT, "pas,%s:%s,%s,,%d,%.2f,,%d,%d,%d,%.3f,,%d,,,,%n",
+                        w.nazwa, p.pas, w.trasa, p.wsiadlo, p.wsiadaniaNaMinute, p.oczekiwanieP50Ms,
+                        p.oczekiwanieP99Ms, p.oczekiwanieMaxMs, p.wypelnienie, p.wKolejce));
+            }
+        }
+        for (TrasaRaport t : trasy) {
+            out.write(String.format(Locale.ROOT, "trasa,%s,,%d,,,,,,,,,,%d,%d,,%n",
+                    t.nazwa, t.naTrasie, t.czasZjazdu, t.zjazdy));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package org.code;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Wbudowany serwer HTTP (com.sun.net.httpserver) na localhost - podgląd symulacji bez okna i bez stdout:
+//  /metrics   - liczniki stacji, wyciągów i tras w formacie tekstowym Prometheusa,
+//  /stan      - ostatnia migawka jako JSON,
+//  /zdarzenia - strumień Server-Sent Events: po połączeniu zdarzenie "migawka" (cały stan), potem przy nowej
+//               migawce zdarzenie "zmiany" tylko ze stacjami, wyciągami i trasami, które się zmieniły (bez zmian -
+//               nic; przy ciszy co PING_MS komentarz).
+// Serwer czyta wyłącznie migawki opublikowane przez PublikatorMigawek - żądania nie dotykają liczników narciarzy
+// ani monitorów wyciągów. Odpowiedzi dla migawki są składane raz (pierwsze żądanie po publikacji), kolejne
+// żądania i wszyscy klienci strumienia dostają gotowe bajty. Połączenia obsługują wątki wirtualne, więc otwarty
+// strumień nie zajmuje wątku systemowego.
+class SerwerHttp {
+    private static final long PING_MS = 15_000; // Komentarz SSE przy braku zmian - wykrywa rozłączonych klientów
+
+    private final PublikatorMigawek migawki;
+    private final long okresMs; // Co ile strumień sprawdza, czy jest nowa migawka
+    private final HttpServer serwer;
+    private final ExecutorService wykonawca = Executors.newVirtualThreadPerTaskExecutor();
+    private final Gson gson = new Gson();
+    private final ReentrantLock lock = new ReentrantLock(); // Składanie wydruku - nie przypina wątków wirtualnych
+    private volatile Wydruk wydruk; // Odpowiedzi dla ostatniej migawki
+    private volatile boolean zatrzymany;
+
+    // Odpowiedzi złożone dla jednej migawki
+    private static final class Wydruk {
+        final MigawkaStoku migawka;
+        final JsonObject drzewo; // Do porównania z następną migawką
+        final byte[] metryki;
+        final byte[] json;
+        final byte[] zmiany; // Różnica względem migawki o epokę wcześniejszej (null - poprzedniej nie znamy)
+        final boolean bezZmian; // Różnica jest pusta - strumień nic nie wysyła
+
+        Wydruk(MigawkaStoku migawka, JsonObject drzewo, byte[] metryki, byte[] json, byte[] zmiany, boolean bezZmian) {
+            this.migawka = migawka;
+            this.drzewo = drzewo;
+            this.metryki = metryki;
+            this.json = json;
+            this.zmiany = zmiany;
+            this.bezZmian = bezZmian;
+        }
+    }
+
+    private SerwerHttp(PublikatorMigawek migawki, int port, long okresMs) throws IOException {
+        this.migawki = migawki;
+        this.okresMs = Math.max(1, okresMs);
+        serwer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        serwer.setExecutor(wykonawca);
+        serwer.createContext("/metrics", ex -> odpowiedz(ex, "text/plain; version=0.0.4; charset=utf-8", true));
+        serwer.createContext("/stan", ex -> odpowiedz(ex, "application/json; charset=utf-8", false));
+        serwer.createContext("/zdarzenia", this::zdarzenia);
+    }
+
+    // Start serwera (port 0 - dowolny wolny port, faktyczny zwraca getPort())
+    static SerwerHttp uruchom(PublikatorMigawek migawki, int port, long okresMs) throws IOException {
+        SerwerHttp s = new SerwerHttp(migawki, port, okresMs);
+        s.serwer.start();
+        return s;
+    }
+
+    int getPort() {
+        return serwer.getAddress().getPort();
+    }
+
+    void zatrzymaj() {
+        zatrzymany = true;
+        serwer.stop(0);
+        wykonawca.shutdownNow();
+    }
+
+    private void odpowiedz(HttpExchange ex, String typ, boolean metryki) throws IOException {
+        try (ex) {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                ex.getResponseHeaders().set("Allow", "GET");
+                ex.sendResponseHeaders(405, -1);
+                return;
+            }
+            Wydruk w = wydruk();
+            if (w == null) {
+                ex.sendResponseHeaders(503, -1); // Jeszcze żadnej migawki
+                return;
+            }
+            byte[] tresc = metryki ? w.metryki : w.json;
+            ex.getResponseHeaders().set("Content-Type", typ);
+            ex.sendResponseHeaders(200, tresc.length);
+            ex.getResponseBody().write(tresc);
+        }
+    }
+
+    // Strumień SSE - każdy klient sprawdza dwa razy na okres publikacji, czy wydruk ma nową epokę. Klient, który
+    // przegapił migawkę (wolne łącze, opóźniona publikacja), dostaje znów całą migawkę zamiast różnicy
+    private void zdarzenia(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                ex.getResponseHeaders().set("Allow", "GET");
+                ex.sendResponseHeaders(405, -1);
+                return;
+            }
+            ex.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            ex.getResponseHeaders().set("Cache-Control", "no-cache");
+            ex.sendResponseHeaders(200, 0); // Bez długości - odpowiedź w kawałkach do rozłączenia
+            OutputStream out = ex.getResponseBody();
+            long epoka = -1;
+            long ostatniZapis = System.currentTimeMillis();
+            while (!zatrzymany) {
+                Wydruk w = wydruk();
+                long teraz = System.currentTimeMillis();
+                if (w != null && w.migawka.epoka == epoka + 1 && w.bezZmian) {
+                    epoka = w.migawka.epoka;
+                } else if (w != null && w.migawka.epoka != epoka) {
+                    boolean cala = w.zmiany == null || w.migawka.epoka != epoka + 1;
+                    out.write(("event: " + (cala ? "migawka" : "zmiany") + "\nid: " + w.migawka.epoka + "\ndata: ")
+                            .getBytes(StandardCharsets.UTF_8));
+                    out.write(cala ? w.json : w.zmiany); // JSON bez formatowania - jedna linia
+                    out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    epoka = w.migawka.epoka;
+                    ostatniZapis = teraz;
+                } else if (teraz - ostatniZapis >= PING_MS) {
+                    out.write(": ping\n\n".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    ostatniZapis = teraz;
+                }
+                Thread.sleep(Math.max(1, okresMs / 2));
+            }
+        } catch (IOException e) {
+            // Klient się rozłączył
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Zatrzymanie serwera
+        }
+    }
+
+    // Wydruk ostatniej migawki - składany raz na migawkę, współbieżni czytelnicy czekają na pierwszego
+    private Wydruk wydruk() {
+        MigawkaStoku m = migawki.getAktualna();
+        if (m == null) return null;
+        Wydruk w = wydruk;
+        if (w != null && w.migawka.epoka >= m.epoka) return w;
+        lock.lock();
+        try {
+            w = wydruk;
+            if (w != null && w.migawka.epoka >= m.epoka) return w;
+            JsonObject drzewo = gson.toJsonTree(m).getAsJsonObject();
+            byte[] zmiany = null;
+            boolean bezZmian = false;
+            if (w != null && w.migawka.epoka == m.epoka - 1) {
+                JsonObject r = roznica(w.drzewo, drzewo);
+                bezZmian = r.getAsJsonArray("stacje").isEmpty() && r.getAsJsonArray("wyciagi").isEmpty()
+                        && r.getAsJsonArray("trasy").isEmpty() && r.get("spojna").equals(w.drzewo.get("spojna"));
+                zmiany = gson.toJson(r).getBytes(StandardCharsets.UTF_8);
+            }
+            w = new Wydruk(m, drzewo, metryki(m).getBytes(StandardCharsets.UTF_8),
+                    gson.toJson(drzewo).getBytes(StandardCharsets.UTF_8), zmiany, bezZmian);
+            wydruk = w;
+            return w;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Różnica migawek: epoka, czas, sumy obecności i tylko zmienione elementy list (z indeksem w liście)
+    private static JsonObject roznica(JsonObject poprzednia, JsonObject nowa) {
+        JsonObject wynik = new JsonObject();
+        for (String pole : new String[]{"epoka", "czasUtworzenia", "spojna", "naStacjach", "naWyciagach", "naTrasach"}) {
+            wynik.add(pole, nowa.get(pole));
+        }
+        for (String lista : new String[]{"stacje", "wyciagi", "trasy"}) {
+            JsonArray stare = poprzednia.getAsJsonArray(lista);
+            JsonArray nowe = nowa.getAsJsonArray(lista);
+            JsonArray zmienione = new JsonArray();
+            for (int i = 0; i < nowe.size(); i++) {
+                JsonElement e = nowe.get(i);
+                if (i < stare.size() && stare.get(i).equals(e)) continue;
+                JsonObject z = e.getAsJsonObject().deepCopy();
+                z.addProperty("indeks", i); // Trasy mogą dochodzić w trakcie symulacji
+                zmienione.add(z);
+            }
+            wynik.add(lista, zmienione);
+        }
+        return wynik;
+    }
+
+    // Format tekstowy Prometheusa - jedna rodzina na metrykę, etykiety stacja / wyciag / trasa
+    static String metryki(MigawkaStoku m) {
+        StringBuilder sb = new StringBuilder(4096);
+        rodzina(sb, "stok_migawka_epoka", "gauge", "Numer migawki stanu stoku");
+        sb.append("stok_migawka_epoka ").append(m.epoka).append('\n');
+        rodzina(sb, "stok_migawka_spojna", "gauge", "1 - liczniki obecności z jednego przekroju");
+        sb.append("stok_migawka_spojna ").append(m.spojna ? 1 : 0).append('\n');
+
+        rodzina(sb, "stok_stacja_narciarze", "gauge", "Narciarze na stacji");
+        for (MigawkaStoku.StanStacji s : m.stacje) {
+            probka(sb, "stok_stacja_narciarze", "stacja", s.nazwa, s.narciarzy);
+        }
+
+        rodzina(sb, "stok_wyciag_na_wyciagu", "gauge", "Narciarze jadący wyciągiem");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) probka(sb, "stok_wyciag_na_wyciagu", "wyciag", w.nazwa, w.naWyciagu);
+        rodzina(sb, "stok_wyciag_w_kolejce", "gauge", "Narciarze w kolejce do wyciągu");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) probka(sb, "stok_wyciag_w_kolejce", "wyciag", w.nazwa, w.wKolejce);
+        rodzina(sb, "stok_wyciag_serwis", "gauge", "1 - wyciąg w serwisie");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) {
+            probka(sb, "stok_wyciag_serwis", "wyciag", w.nazwa, w.status == WyciagStatus.MAINTENANCE ? 1 : 0);
+        }
+        rodzina(sb, "stok_wyciag_serwis_oczekuje", "gauge", "1 - serwis zaplanowany, wyciąg dowozi ostatnich narciarzy");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) {
+            probka(sb, "stok_wyciag_serwis_oczekuje", "wyciag", w.nazwa, w.serwisOczekuje ? 1 : 0);
+        }
+        rodzina(sb, "stok_wyciag_przejazdy_total", "counter", "Przejazdy narciarzy wyciągiem");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) probka(sb, "stok_wyciag_przejazdy_total", "wyciag", w.nazwa, w.przejazdy);
+        rodzina(sb, "stok_wyciag_serwisy_total", "counter", "Serwisy wyciągu");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) probka(sb, "stok_wyciag_serwisy_total", "wyciag", w.nazwa, w.serwisy);
+        rodzina(sb, "stok_wyciag_przejazdy_na_minute", "gauge", "Przejazdy na minutę od startu wyciągu");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) {
+            probka(sb, "stok_wyciag_przejazdy_na_minute", "wyciag", w.nazwa, w.przejazdyNaMinute);
+        }
+        rodzina(sb, "stok_wyciag_oczekiwanie_sekundy", "gauge", "Czas oczekiwania w kolejce (kwantyle i maksimum)");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) {
+            String et = "wyciag=\"" + etykieta(w.nazwa) + "\",kwantyl=";
+            sb.append("stok_wyciag_oczekiwanie_sekundy{").append(et).append("\"0.5\"} ").append(liczba(w.oczekiwanieP50Ms / 1000.0)).append('\n');
+            sb.append("stok_wyciag_oczekiwanie_sekundy{").append(et).append("\"0.99\"} ").append(liczba(w.oczekiwanieP99Ms / 1000.0)).append('\n');
+            sb.append("stok_wyciag_oczekiwanie_sekundy{").append(et).append("\"1\"} ").append(liczba(w.oczekiwanieMaxMs / 1000.0)).append('\n');
+        }
+        rodzina(sb, "stok_wyciag_wypelnienie", "gauge", "Zajęte miejsca / oferowane miejsca");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) probka(sb, "stok_wyciag_wypelnienie", "wyciag", w.nazwa, w.wypelnienie);
+        rodzina(sb, "stok_wyciag_utracone_miejsca_total", "counter", "Miejsca utracone przez serwisy");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) {
+            probka(sb, "stok_wyciag_utracone_miejsca_total", "wyciag", w.nazwa, w.utraconeMiejsca);
+        }
+        rodzina(sb, "stok_wyciag_niedostepnosc_sekundy_total", "counter", "Czas niedostępności wyciągu");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) {
+            probka(sb, "stok_wyciag_niedostepnosc_sekundy_total", "wyciag", w.nazwa, w.czasNiedostepnosciMs / 1000.0);
+        }
+        rodzina(sb, "stok_wyciag_najdluzsza_kolejka", "gauge", "Najdłuższa kolejka od startu");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) {
+            probka(sb, "stok_wyciag_najdluzsza_kolejka", "wyciag", w.nazwa, w.najdluzszaKolejka);
+        }
+        rodzina(sb, "stok_wyciag_odrzucenia_total", "counter", "Rezygnacje z pełnej kolejki");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) probka(sb, "stok_wyciag_odrzucenia_total", "wyciag", w.nazwa, w.odrzucenia);
+        rodzina(sb, "stok_wyciag_przekierowania_total", "counter", "Narciarze przekierowani po rezygnacji");
+        for (MigawkaStoku.StanWyciagu w : m.wyciagi) {
+            probka(sb, "stok_wyciag_przekierowania_total", "wyciag", w.nazwa, w.przekierowania);
+        }
+
+        rodzina(sb, "stok_trasa_na_trasie", "gauge", "Narciarze w trakcie zjazdu");
+        for (MigawkaStoku.StanTrasy t : m.trasy) probka(sb, "stok_trasa_na_trasie", "trasa", t.nazwa, t.naTrasie);
+        rodzina(sb, "stok_trasa_zjazdy_total", "counter", "Zjazdy trasą");
+        for (MigawkaStoku.StanTrasy t : m.trasy) probka(sb, "stok_trasa_zjazdy_total", "trasa", t.nazwa, t.zjazdy);
+        return sb.toString();
+    }
+
+    private static void rodzina(StringBuilder sb, String nazwa, String typ, String opis) {
+        sb.append("# HELP ").append(nazwa).append(' ').append(opis).append('\n');
+        sb.append("# TYPE ").append(nazwa).append(' ').append(typ).append('\n');
+    }
+
+    private static void probka(StringBuilder sb, String nazwa, String klucz, String wartoscEtykiety, long wartosc) {
+        sb.append(nazwa).append('{').append(klucz).append("=\"").append(etykieta(wartoscEtykiety)).append("\"} ")
+                .append(wartosc).append('\n');
+    }
+
+    private static void probka(StringBuilder sb, String nazwa, String klucz, String wartoscEtykiety, double wartosc) {
+        sb.append(nazwa).append('{').append(klucz).append("=\"").append(etykieta(wartoscEtykiety)).append("\"} ")
+                .append(liczba(wartosc)).append('\n');
+    }
+
+    private static String liczba(double x) {
+        return String.format(Locale.ROOT, "%.3f", x);
+    }
+
+    // Wartość etykiety: \ " i nowa linia muszą być poprzedzone \
+    private static String etykieta(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
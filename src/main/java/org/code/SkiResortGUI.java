@@ -4,16 +4,21 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
 import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.QuadCurve2D;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 
 // Zdecydowałem się na nieużywanie javaFX, ponieważ nie miałem okazji testować jeszcze kodu ze Swing. Stwierdziłem, że spróbuję
-// swoich sił. Animacja nie jest płynna, co umożliwiałaby javaFX, ale terminal aktualizuje się co 2 sekundy, więc interpretacja GUI
-// jest adekwatna i czytelna w formie, którą zastosowałem niżej.
+// swoich sił. Liczby w GUI zmieniają się razem z terminalem (migawka stanu), a płynną animację daje javax.swing.Timer - położenie
+// narciarzy jest liczone przy rysowaniu z czasów wsiadania i rozpoczęcia zjazdu (animacjaFps w config, 0 - bez animacji).
+// Z opcją --odtworz <plik> [--tempo x] GUI pokazuje zapisany ślad zdarzeń zamiast żywej symulacji.
 
 public class SkiResortGUI extends JFrame {
 
@@ -31,6 +36,11 @@ public class SkiResortGUI extends JFrame {
     private final JLabel statusEtykieta; // Etykieta, która będzie wyświetlać status symulacji
     private final StokWidok stokWidok; // Płótno do rysowania elementów stoku
     private Timer updateTimer; // Timer do aktualizacji widoku co 2 sekundy
+    private SkiResortSimulation symulacja; // Wyświetlana instancja symulacji
+    private javax.swing.Timer animacja; // Timer klatek animacji (null - animacja wyłączona)
+    private String plikSladu; // Odtwarzany ślad zdarzeń (null - żywa symulacja)
+    private String plikKonfiguracji = SkiResortSimulation.domyslnaKonfiguracja();
+    private double tempoOdtwarzania = 1.0;
 
     public SkiResortGUI() {
         super("Symulacja Stoku Narciarskiego");
@@ -54,6 +64,9 @@ public class SkiResortGUI extends JFrame {
                 if (updateTimer != null) {
                     updateTimer.cancel();
                 }
+                if (animacja != null) {
+                    animacja.stop();
+                }
                 super.windowClosing(e);
             }
         });
@@ -69,80 +82,110 @@ public class SkiResortGUI extends JFrame {
         // Aby była synchronizacja z terminalem, zamiast używać niezależnego timera, używam tej samej pętli co w TUI
         updateTimer = null; // brak niezależnego timera
 
-        SkiResortSimulation.setGuiUpdateCallback(() -> {
-            SwingUtilities.invokeLater(() -> {
+        if (symulacja != null && symulacja.cfg.animacjaFps > 0) {
+            // Płynna animacja - klatki na EDT, symulacja nie wykonuje żadnej pracy na klatkę
+            animacja = new javax.swing.Timer(Math.max(1, 1000 / symulacja.cfg.animacjaFps), e -> {
                 updateView();
                 stokWidok.repaint();
             });
-        });
+            animacja.start();
+        } else if (symulacja != null) {
+            symulacja.setGuiUpdateCallback(() -> {
+                SwingUtilities.invokeLater(() -> {
+                    updateView();
+                    stokWidok.repaint();
+                });
+            });
+        }
     }
 
     private void initializeSimulation() {
         try {
+            // Model jest gotowy zaraz po utworzeniu instancji, więc widoki budujemy od razu (bez czekania na wątek)
+            OdtwarzaczSladu odtwarzacz = null;
+            if (plikSladu != null) {
+                odtwarzacz = new OdtwarzaczSladu(java.nio.file.Path.of(plikSladu), tempoOdtwarzania);
+                symulacja = odtwarzacz.symulacja; // Model z konfiguracji zapisanej w śladzie
+            } else {
+                symulacja = new SkiResortSimulation(SkiResortSimulation.wczytajKonfiguracje(plikKonfiguracji));
+            }
+
+            initializeStationViews();
+            initializeRouteViews();
+            initializeLiftViews();
+
             // Uruchamiam symulację w osobnym wątku
+            OdtwarzaczSladu o = odtwarzacz;
             new Thread(() -> {
                 try {
-                    SkiResortSimulation.main(new String[]{});
+                    if (o != null) {
+                        o.odtworz();
+                        SwingUtilities.invokeLater(() -> statusEtykieta.setText(
+                                statusEtykieta.getText() + " | Koniec odtwarzania"));
+                    } else {
+                        symulacja.uruchom();
+                    }
                 } catch (Exception e) {
                     e.printStackTrace(); // podstawowa metoda obsługi wyjątków w Javie, drukuje na wyjście błędów pełny ślad stosu wywołań ...
                 }
             }).start();
-
-            Thread.sleep(1000);
-
-            initializeStationViews();
-            initializeRouteViews();
-            initializeLiftViews();
         } catch (Exception e) {
             e.printStackTrace();
             statusEtykieta.setText("Błąd inicjalizacji: " + e.getMessage());
         }
     }
 
+    // Rozmieszczenie stacji według wysokości: wysokość wyznacza pas (wiersz) na ekranie, a stacje w jednym pasie
+    // są rozłożone równo wzdłuż osi OX. Pojedyncza stacja w środkowym pasie jest odsuwana na bok, żeby wyciągi
+    // między pasem niżej i wyżej nie przechodziły przez nią (dla bazy, połowy i szczytu - dawny trójkąt)
     private void initializeStationViews() {
-        for (Stacja stacja : SkiResortSimulation.stacje) { // Chcę rozmieścić pozycje stacji w układzie trójkąta, ale podstawa wzdłu osi OY
-            int poziom = stacja.getPoziom();
-            double x, y;
-
-            switch (poziom) {
-                case 0: // Baza - dół, środek
-                    x = WIDTH / 2;
-                    y = HEIGHT - 100;
-                    break;
-                case 1: // Pośrednia, środek wysokości, po lewej
-                    x = WIDTH / 4;
-                    y = HEIGHT / 2;
-                    break;
-                case 2: // Szczyt - góra, środek
-                    x = WIDTH / 2;
-                    y = 100;
-                    break;
-                default:
-                    x = WIDTH / 2;
-                    y = HEIGHT / 2;
-            }
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (Stacja stacja : symulacja.stacje) {
+            min = Math.min(min, stacja.getWysokosc());
+            max = Math.max(max, stacja.getWysokosc());
+        }
+        int pasy = Math.max(2, (HEIGHT - 200) / (2 * STATION_PROMIEN + 10)); // Tyle pasów, ile zmieści się bez nakładania
+        List<List<Stacja>> wPasie = new ArrayList<>();
+        for (int i = 0; i < pasy; i++) {
+            wPasie.add(new ArrayList<>());
+        }
+        for (Stacja stacja : symulacja.stacje) {
+            int pas = max == min ? 0 : (int) Math.round((double) (stacja.getWysokosc() - min) / (max - min) * (pasy - 1));
+            wPasie.get(pas).add(stacja);
+        }
 
-            // Dodanie widoku stacji do mapy
-            stationViews.put(stacja.nazwa, new StationView(stacja, x, y));
+        int odsuniete = 0;
+        for (int pas = 0; pas < pasy; pas++) {
+            List<Stacja> lista = wPasie.get(pas);
+            double y = max == min ? HEIGHT / 2 : HEIGHT - 100 - (double) pas * (HEIGHT - 200) / (pasy - 1);
+            for (int j = 0; j < lista.size(); j++) {
+                double x = (double) WIDTH * (j + 1) / (lista.size() + 1);
+                if (lista.size() == 1 && pas > 0 && pas < pasy - 1) {
+                    x = odsuniete++ % 2 == 0 ? WIDTH / 4 : WIDTH * 3 / 4;
+                }
+                // Dodanie widoku stacji do mapy
+                stationViews.put(lista.get(j).nazwa, new StationView(lista.get(j), x, y));
+            }
         }
     }
 
     private void initializeRouteViews() {
-        for (Trasa trasa : SkiResortSimulation.trasy) {
+        for (int i = 0; i < symulacja.trasy.size(); i++) {
+            Trasa trasa = symulacja.trasy.get(i);
             if (trasa.duration > 0) {
                 // trasy zjazdowe (czas > 0)
                 StationView start = stationViews.get(trasa.stacjaGorna.nazwa);
                 StationView end = stationViews.get(trasa.stacjaDolna.nazwa);
 
                 if (start != null && end != null) {
-                    routeViews.put(trasa.name, new RouteView(trasa, start, end));
+                    routeViews.put(trasa.name, new RouteView(trasa, i, start, end));
                 }
             }
         }
     }
 
     private void initializeLiftViews() {
-        for (Wyciag wyciag : SkiResortSimulation.wyciagi) {
+        for (Wyciag wyciag : symulacja.wyciagi) {
             StationView start = stationViews.get(wyciag.trasa.stacjaDolna.nazwa);
             StationView end = stationViews.get(wyciag.trasa.stacjaGorna.nazwa);
 
@@ -153,53 +196,80 @@ public class SkiResortGUI extends JFrame {
     }
 
     private void updateView() {
+        // Wszystkie widoki czytają z jednej migawki - liczby na stacjach, wyciągach i trasach pochodzą z tej samej chwili
+        MigawkaStoku migawka = symulacja.getMigawka();
+
         // Aktualizacja danych stacji
         for (StationView stationView : stationViews.values()) {
-            stationView.update();
+            stationView.update(migawka);
         }
 
         // Aktualizacja danych tras
         for (RouteView routeView : routeViews.values()) {
-            routeView.update();
+            routeView.update(migawka);
         }
 
         // ... wyciągów
         for (LiftView liftView : liftViews.values()) {
-            liftView.update();
+            liftView.update(migawka);
         }
 
-        updateStatus();
+        updateStatus(migawka);
     }
 
-    private void updateStatus() {
-        StringBuilder status = new StringBuilder("Status symulacji: ");
-
-        int totalSkiers = 0;
-        int totalOnLifts = 0;
-        int totalOnRoutes = 0;
-
-        // Zliczanie narciarzy na stacjach
-        for (Stacja st : SkiResortSimulation.stacje) {
-            totalSkiers += st.getLiczbaNarciarzy();
-        }
-
-        for (Wyciag w : SkiResortSimulation.wyciagi) {
-            totalOnLifts += w.getNaWyciagu();
-        }
-
-        for (Trasa tr : SkiResortSimulation.trasy) {
-            if (tr.duration > 0) {
-                totalOnRoutes += tr.getNaTrasie();
+    // Położenia zjeżdżających na trasach rysowanych punktami (0 - start, 1 - koniec), liczone z czasu rozpoczęcia zjazdu.
+    // Każda trasa zna swoich zjeżdżających, więc czytamy najwyżej PROG_AGREGACJI narciarzy z trasy - bez przeglądu
+    // wszystkich narciarzy; trasy puste i rysowane jako pasek zagęszczenia są pomijane
+    private void rozlozZjazdy(long teraz) {
+        for (RouteView widok : routeViews.values()) {
+            widok.liczbaPozycji = 0;
+            if (widok.naTrasie == 0 || widok.naTrasie > PROG_AGREGACJI) continue;
+            Trasa trasa = widok.trasa;
+            for (Narciarz nar : trasa.zjezdzajacy) {
+                if (widok.liczbaPozycji == PROG_AGREGACJI) break;
+                double t = (teraz - nar.poczatekZjazdu) / (trasa.duration * 1000.0);
+                widok.pozycje[widok.liczbaPozycji++] = Math.max(0.0, Math.min(1.0, t));
             }
         }
+    }
+
+    private void updateStatus(MigawkaStoku migawka) {
+        StringBuilder status = new StringBuilder("Status symulacji: ");
 
-        status.append("Narciarzy na stacjach: ").append(totalSkiers)
-                .append(" | Na wyciągach: ").append(totalOnLifts).append(" | Zjeżdżających: ")
-                .append(totalOnRoutes);
+        status.append("Narciarzy na stacjach: ").append(migawka.naStacjach)
+                .append(" | Na wyciągach: ").append(migawka.naWyciagach).append(" | Zjeżdżających: ")
+                .append(migawka.naTrasach);
 
         statusEtykieta.setText(status.toString());
     }
 
+    // Stałe do rysowania - tworzone raz, a nie przy każdej klatce
+    private static final Color KOLOR_TLA = new Color(173, 216, 230); // Jasnoniebieski
+    private static final Color KOLOR_STACJI = new Color(0, 0, 128); // Ciemno niebieski
+    private static final Color KOLOR_TRASY = new Color(0, 100, 0); // Ciemnozielony
+    private static final Color KOLOR_LEGENDY = new Color(255, 255, 255, 200);
+    private static final Font CZCIONKA_TYTULU = new Font("Arial", Font.BOLD, 16);
+    private static final Font CZCIONKA_STACJI = new Font("Arial", Font.BOLD, 14);
+    private static final Font CZCIONKA_TRASY = new Font("Arial", Font.BOLD, 12);
+    private static final Font CZCIONKA_LEGENDY = new Font("Arial", Font.PLAIN, 12);
+    private static final BasicStroke LINIA_WYCIAGU = new BasicStroke(3.0f);
+    private static final BasicStroke LINIA_TRASY = new BasicStroke(5.0f);
+    private static final BasicStroke LINIA_SLADU = new BasicStroke(1.0f);
+    private static final BasicStroke LINIA_LEGENDY = new BasicStroke(2.0f);
+    private static final BasicStroke LINIA_LEGENDY_TRASY = new BasicStroke(3.0f);
+    private static final BasicStroke PASEK_ZAGESZCZENIA = new BasicStroke(9.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND);
+
+    // Powyżej tylu narciarzy na jednym wyciągu / trasie zamiast pojedynczych punktów rysowany jest pasek zagęszczenia,
+    // więc czas klatki nie rośnie z liczbą narciarzy
+    private static final int PROG_AGREGACJI = 40;
+    private static final int KROKI_KRZYWEJ = 24; // Liczba odcinków łamanej przybliżającej krzywą trasy
+
+    // Kolor paska zagęszczenia: od żółtego (mało) do czerwonego (pełno), zapełnienie 0.0 - 1.0
+    private static Color kolorZageszczenia(double zapelnienie) {
+        double z = Math.max(0.0, Math.min(1.0, zapelnienie));
+        return new Color(255, (int) (220 * (1 - z)), 0, 200);
+    }
+
     private class StationView {
         private final Stacja stacja; // Referencja do obiektu stacji
         private final double x, y; // Współrzędne stacji na ekranie
@@ -212,32 +282,41 @@ public class SkiResortGUI extends JFrame {
             this.narciarze = stacja.getLiczbaNarciarzy();
         }
 
-        public void update() {
-            this.narciarze = stacja.getLiczbaNarciarzy();
+        public void update(MigawkaStoku migawka) {
+            this.narciarze = migawka.stacje.get(stacja.indeks).narciarzy;
         }
 
-        public void draw(Graphics2D g2d) {
+        // Część stała - koło i nazwa (rysowana raz do warstwy stacji)
+        public void drawStatic(Graphics2D g2d) {
             // Rysowanie stacji jako koła
-            g2d.setColor(new Color(0, 0, 128)); // Ciemno niebieski
+            g2d.setColor(KOLOR_STACJI);
             Ellipse2D.Double circle = new Ellipse2D.Double(
                     x - STATION_PROMIEN, y - STATION_PROMIEN, STATION_PROMIEN * 2, STATION_PROMIEN * 2); // Wyznaczenie krańców okręgu
             g2d.fill(circle); // Zamalowanie
 
             // Eytkieta - nazwa stacji
             g2d.setColor(Color.WHITE);
-            g2d.setFont(new Font("Arial", Font.BOLD, 14));
+            g2d.setFont(CZCIONKA_STACJI);
             g2d.drawString(stacja.nazwa, (float) (x - STATION_PROMIEN + 5), (float) y); // Położenie nazwy stacji względem środka ekranu
+        }
 
-            // Rysuj liczbę narciarzy
-            g2d.drawString("" + narciarze, (float)(x - 5), (float)(y + 15));
+        // Część zmienna - liczba narciarzy
+        public void draw(Graphics2D g2d) {
+            g2d.setColor(Color.WHITE);
+            g2d.setFont(CZCIONKA_STACJI);
+            g2d.drawString(String.valueOf(narciarze), (float)(x - 5), (float)(y + 15));
         }
     }
 
     private class LiftView {
         private final Wyciag wyciag; // Referencja do obiektu wyciągu
         private final StationView start, end; // Stacja początkowa i końcowa
+        private final Line2D.Double linia;
+        private final Line2D.Double pasek; // Odcinek między krawędziami stacji - pod pasek zagęszczenia
         private int naWyciagu; // Liczba narciarzy na wyciągu
         private boolean wMaintenance;
+        private final long[] przybyciaKrzeselek; // Kopia pierścienia krzesełek na klatkę (bez alokacji)
+        private final int[] zajetoscKrzeselek;
 
         public LiftView(Wyciag wyciag, StationView start, StationView end) {
             this.wyciag = wyciag;
@@ -245,50 +324,69 @@ public class SkiResortGUI extends JFrame {
             this.end = end;
             this.naWyciagu = wyciag.getNaWyciagu();
             this.wMaintenance = wyciag.getStatus() == WyciagStatus.MAINTENANCE;
+            this.przybyciaKrzeselek = new long[wyciag.krzeselka.liczba];
+            this.zajetoscKrzeselek = new int[wyciag.krzeselka.liczba];
+
+            this.linia = new Line2D.Double(start.x, start.y, end.x, end.y);
+            double dx = end.x - start.x;
+            double dy = end.y - start.y;
+            double k = STATION_PROMIEN / Math.sqrt(dx * dx + dy * dy);
+            this.pasek = new Line2D.Double(start.x + dx * k, start.y + dy * k, end.x - dx * k, end.y - dy * k);
         }
 
-        public void update() {
-            this.naWyciagu = wyciag.getNaWyciagu();
-            this.wMaintenance = wyciag.getStatus() == WyciagStatus.MAINTENANCE;
+        public void update(MigawkaStoku migawka) {
+            MigawkaStoku.StanWyciagu stan = migawka.wyciagi.get(wyciag.indeks);
+            this.naWyciagu = stan.naWyciagu;
+            this.wMaintenance = stan.status == WyciagStatus.MAINTENANCE;
         }
 
-        public void draw(Graphics2D g2d) {
-            // Kolor zmienia się, bo jest zależny od statusu - czerwony oznacza serwis
-            if (wMaintenance) {
-                g2d.setColor(Color.RED);
-            } else {
-                g2d.setColor(Color.BLACK);
-            }
+        // Część stała - linia i strzałka wyciągu działającego
+        public void drawStatic(Graphics2D g2d) {
+            g2d.setColor(Color.BLACK);
+            drawLine(g2d);
+        }
 
+        private void drawLine(Graphics2D g2d) {
             // Stała grubość linii
-            float lineWidth = 3.0f;
-            g2d.setStroke(new BasicStroke(lineWidth));
+            g2d.setStroke(LINIA_WYCIAGU);
 
             // Linia wyciągu - prosta od stacji dolnej do górnej
-            Line2D.Double line = new Line2D.Double(start.x, start.y, end.x, end.y);
-            g2d.draw(line);
+            g2d.draw(linia);
 
             // Kierunek wyciągu - strzałka w górę
             drawArrow(g2d, start.x, start.y, end.x, end.y);
+        }
 
-            // Etykieta - nazwa wyciągu
+        public void draw(Graphics2D g2d, long teraz) {
+            // Kolor zmienia się, bo jest zależny od statusu - czerwony oznacza serwis (na warstwie stałej jest czarny)
+            if (wMaintenance) {
+                g2d.setColor(Color.RED);
+                drawLine(g2d);
+            }
+
+            if (naWyciagu > PROG_AGREGACJI) { // Dużo narciarzy - jeden pasek zamiast tysięcy krzesełek
+                g2d.setColor(kolorZageszczenia(naWyciagu / (double) Math.max(1, wyciag.capacity)));
+                g2d.setStroke(PASEK_ZAGESZCZENIA);
+                g2d.draw(pasek);
+            } else if (animacja != null) { // Krzesełka w rzeczywistym położeniu
+                drawChairs(g2d, teraz);
+            } else if (naWyciagu > 0) { // Interpretacja graficzna narciarzy
+                drawSkiersOnLift(g2d);
+            }
+
+            // Etykieta - nazwa wyciągu (na wierzchu)
             double midX = (start.x + end.x) / 2;
             double midY = (start.y + end.y) / 2;
 
             // Rozmieszczenie etykiet
+            g2d.setColor(Color.BLACK);
+            String etykieta = "Wyciąg " + wyciag.name + " (" + naWyciagu + ")";
             if (wyciag.name.equals("A")) {
-                g2d.setColor(Color.BLACK);
-                g2d.drawString("Wyciąg " + wyciag.name + " (" + naWyciagu + ")", (float) (midX + 15), (float) (midY - 15));
+                g2d.drawString(etykieta, (float) (midX + 15), (float) (midY - 15));
             } else if (wyciag.name.equals("B")) {
-                g2d.setColor(Color.BLACK);
-                g2d.drawString("Wyciąg " + wyciag.name + " (" + naWyciagu + ")", (float) (midX - 40), (float) (midY - 50));
+                g2d.drawString(etykieta, (float) (midX - 40), (float) (midY - 50));
             } else {
-                g2d.setColor(Color.BLACK);
-                g2d.drawString("Wyciąg " + wyciag.name + " (" + naWyciagu + ")", (float) (midX - 25), (float) (midY + 40));
-            }
-
-            if (naWyciagu > 0) { // Interpretacja graficzna narciarzy
-                drawSkiersOnLift(g2d);
+                g2d.drawString(etykieta, (float) (midX - 25), (float) (midY + 40));
             }
         }
 
@@ -313,43 +411,66 @@ public class SkiResortGUI extends JFrame {
             arrow.addPoint((int) (arrowX - dirX * arrowSize + perpX * arrowSize), (int) (arrowY - dirY * arrowSize + perpY * arrowSize));
             arrow.addPoint((int) (arrowX - dirX * arrowSize - perpX * arrowSize), (int) (arrowY - dirY * arrowSize - perpY * arrowSize));
 
-            Color prevColor = g2d.getColor();
             g2d.fill(arrow);
-            g2d.setColor(prevColor);
         }
 
         private void drawSkiersOnLift(Graphics2D g2d) {
             double dx = end.x - start.x;
             double dy = end.y - start.y;
-            double length = Math.sqrt(dx * dx + dy * dy);
 
             // Rysowanie krzesełek z narciarzami
             for (int i = 0; i < naWyciagu; i++) {
                 // Narciarze rozmieszczeni równomiernie na wyciągu (taki sam odstęp)
                 double ratio = (i + 1.0) / (naWyciagu + 1.0);
-                double x = start.x + dx * ratio;
-                double y = start.y + dy * ratio;
+                drawChair(g2d, start.x + dx * ratio, start.y + dy * ratio, 1);
+            }
+        }
 
-                // Krzesełko to mały kwadrat
-                g2d.setColor(Color.DARK_GRAY);
-                g2d.fillRect((int) (x - 5), (int) (y - 5), 10, 10);
+        // Krzesełka jadące w górę - położenie z czasu przybycia na górę, zajęte miejsca jako punkty
+        private void drawChairs(Graphics2D g2d, long teraz) {
+            double dx = end.x - start.x;
+            double dy = end.y - start.y;
+            double czasJazdy = wyciag.interval * 1000.0;
+            int jadace = wyciag.krzeselka.kopiuj(przybyciaKrzeselek, zajetoscKrzeselek);
+            for (int i = 0; i < jadace; i++) {
+                double ratio = Math.max(0.0, Math.min(1.0, 1.0 - (przybyciaKrzeselek[i] - teraz) / czasJazdy));
+                drawChair(g2d, start.x + dx * ratio, start.y + dy * ratio, zajetoscKrzeselek[i]);
+            }
+        }
 
-                // Narciarz to mały czerwony punkt
-                g2d.setColor(Color.RED);
+        private void drawChair(Graphics2D g2d, double x, double y, int zajete) {
+            // Krzesełko to mały kwadrat
+            g2d.setColor(Color.DARK_GRAY);
+            g2d.fillRect((int) (x - 5), (int) (y - 5), 10, 10);
+
+            // Narciarz to mały czerwony punkt - przy kilku zajętych miejscach punkty leżą obok siebie
+            g2d.setColor(Color.RED);
+            if (zajete <= 1) {
                 g2d.fillOval((int) (x - 3), (int) (y - 3), 6, 6);
+                return;
+            }
+            int pokazane = Math.min(zajete, 4);
+            for (int i = 0; i < pokazane; i++) {
+                g2d.fillOval((int) (x - 2 * pokazane + 4 * i), (int) (y - 2), 4, 4);
             }
         }
     }
 
     private class RouteView {
         private final Trasa trasa;
+        private final int indeks; // Pozycja trasy na liście tras symulacji (i w migawce)
         private final StationView start, end;
         private int naTrasie;
         private final double pkontrolnyX, pkontrolnyY;
+        private final QuadCurve2D.Double krzywa;
+        private final Path2D.Double pasek; // Krzywa bez odcinków schowanych pod stacjami - pod pasek zagęszczenia
+        private final double[] pozycje = new double[PROG_AGREGACJI]; // Położenia zjeżdżających w tej klatce (animacja)
+        private int liczbaPozycji;
 
 
-        public RouteView(Trasa trasa, StationView start, StationView end) {
+        public RouteView(Trasa trasa, int indeks, StationView start, StationView end) {
             this.trasa = trasa;
+            this.indeks = indeks;
             this.start = start;
             this.end = end;
             this.naTrasie = trasa.getNaTrasie();
@@ -359,67 +480,86 @@ public class SkiResortGUI extends JFrame {
             double midY = (start.y + end.y) / 2;
             this.pkontrolnyX = midX + (start.y - end.y) / 4; // Przesunięcie w bok
             this.pkontrolnyY = midY + (end.x - start.x) / 4;
+
+            this.krzywa = new QuadCurve2D.Double(start.x, start.y, pkontrolnyX, pkontrolnyY, end.x, end.y);
+            this.pasek = new Path2D.Double();
+            for (int k = 0; k <= KROKI_KRZYWEJ; k++) {
+                double t = 0.1 + 0.8 * k / KROKI_KRZYWEJ;
+                if (k == 0) {
+                    pasek.moveTo(punktX(t), punktY(t));
+                } else {
+                    pasek.lineTo(punktX(t), punktY(t));
+                }
+            }
         }
 
-        public void update() {
-            this.naTrasie = trasa.getNaTrasie();
+        // Punkt na krzywej Béziera dla parametru t (0 - start, 1 - koniec)
+        private double punktX(double t) {
+            double u = 1 - t;
+            return u * u * start.x + 2 * u * t * pkontrolnyX + t * t * end.x;
         }
 
-        public void draw(Graphics2D g2d) {
-            Font originalFont = g2d.getFont(); // Zapisywanie stanu dla późniejszego przywrócenia aplikacji
-            Stroke originalStroke = g2d.getStroke();
+        private double punktY(double t) {
+            double u = 1 - t;
+            return u * u * start.y + 2 * u * t * pkontrolnyY + t * t * end.y;
+        }
+
+        public void update(MigawkaStoku migawka) {
+            this.naTrasie = migawka.trasy.get(indeks).naTrasie;
+        }
 
+        // Część stała - krzywa trasy i strzałka
+        public void drawStatic(Graphics2D g2d) {
             // Gruba zielona linia dla trasy
-            g2d.setColor(new Color(0, 100, 0)); // Ciemnozielony
-            g2d.setStroke(new BasicStroke(5.0f));
+            g2d.setColor(KOLOR_TRASY);
+            g2d.setStroke(LINIA_TRASY);
 
             // Z punktów kontrolnych dla krzywej rysujemy trasę
-            QuadCurve2D.Double curve = new QuadCurve2D.Double(
-                    start.x, start.y, pkontrolnyX, pkontrolnyY, end.x, end.y);
-            g2d.draw(curve);
+            g2d.draw(krzywa);
 
             // Strzałka, która wskazuje kierunek zjazdu
             drawArrow(g2d, start.x, start.y, end.x, end.y);
+        }
+
+        public void draw(Graphics2D g2d) {
+            // Rysowanie narciarzy
+            if (naTrasie > PROG_AGREGACJI) { // Trasa nie ma pojemności - pełny czerwony przy 4x progu
+                g2d.setColor(kolorZageszczenia(naTrasie / (4.0 * PROG_AGREGACJI)));
+                g2d.setStroke(PASEK_ZAGESZCZENIA);
+                g2d.draw(pasek);
+            } else if (animacja != null) {
+                g2d.setStroke(LINIA_SLADU);
+                for (int i = 0; i < liczbaPozycji; i++) {
+                    drawSkier(g2d, pozycje[i]);
+                }
+            } else if (naTrasie > 0) {
+                drawSkiersOnRoute(g2d);
+            }
 
             // Etykieta trasy - nazwa i liczba narciarzy na trasie obecnie
-            g2d.setColor(new Color(0, 100, 0));
-            g2d.setFont(new Font("Arial", Font.BOLD, 12));
+            g2d.setColor(KOLOR_TRASY);
+            g2d.setFont(CZCIONKA_TRASY);
             double midX = (start.x + end.x) / 2;
             double midY = (start.y + end.y) / 2;
 
             // Ustawienie nazw trasy
+            String etykieta = "Trasa " + trasa.name + " (" + naTrasie + ")";
             if (trasa.name.equals("szczyt-baza")) {
-                g2d.drawString("Trasa " + trasa.name + " (" + naTrasie + ")", (float) (midX + 15), (float) (midY + 65));
+                g2d.drawString(etykieta, (float) (midX + 15), (float) (midY + 65));
             } else if (trasa.name.equals("polowa-baza")) {
-                g2d.drawString("Trasa " + trasa.name + " (" + naTrasie + ")", (float) (midX - 130), (float) (midY + 70));
+                g2d.drawString(etykieta, (float) (midX - 130), (float) (midY + 70));
             } else {
-                g2d.drawString("Trasa " + trasa.name + " (" + naTrasie + ")", (float) (midX - 160), (float) (midY - 40));
-            }
-
-            // Rysowanie narciarzy
-            if (naTrasie > 0) {
-                drawSkiersOnRoute(g2d);
+                g2d.drawString(etykieta, (float) (midX - 160), (float) (midY - 40));
             }
-
-            g2d.setStroke(originalStroke);
-            g2d.setFont(originalFont);
         }
 
         private void drawArrow(Graphics2D g2d, double x1, double y1, double x2, double y2) {
-            double dx = x2 - x1;
-            double dy = y2 - y1;
-            double length = Math.sqrt(dx * dx + dy * dy);
-
-            double dirX = dx / length;
-            double dirY = dy / length;
+            double dirX, dirY;
 
             // Punkt dla strzałki w 2/3 długiści trasy (na krzywej)
             double t = 2.0 / 3.0;
-            double u = 1 - t;
-            double tt = t * t;
-            double uu = u * u;
-            double arrowX = uu * x1 + 2 * u * t * pkontrolnyX + tt * x2;
-            double arrowY = uu * y1 + 2 * u * t * pkontrolnyY + tt * y2;
+            double arrowX = punktX(t);
+            double arrowY = punktY(t);
             double zmiennaX = 2 * (1 - t) * (pkontrolnyX - x1) + 2 * t * (x2 - pkontrolnyX);
             double zmiennaY = 2 * (1 - t) * (pkontrolnyY - y1) + 2 * t * (y2 - pkontrolnyY);
             double zmiennaLength = Math.sqrt(zmiennaX * zmiennaX + zmiennaY * zmiennaY);
@@ -435,122 +575,169 @@ public class SkiResortGUI extends JFrame {
             arrow.addPoint((int) (arrowX - dirX * arrowSize + perpX * arrowSize), (int) (arrowY - dirY * arrowSize + perpY * arrowSize));
             arrow.addPoint((int) (arrowX - dirX * arrowSize - perpX * arrowSize), (int) (arrowY - dirY * arrowSize - perpY * arrowSize));
 
-            g2d.setColor(new Color(0, 100, 0));
+            g2d.setColor(KOLOR_TRASY);
             g2d.fill(arrow);
         }
 
         private void drawSkiersOnRoute(Graphics2D g2d) {
+            g2d.setStroke(LINIA_SLADU);
             for(int i = 0; i < naTrasie; i++) {
                 // Rozmieść narciarzy wzdłuż krzywej - zjazdu
                 double t = (i + 1.0) / (naTrasie + 1.0);
+                drawSkier(g2d, t);
+            }
+        }
 
-                double u = 1 - t;
-                double tt = t * t;
-                double uu = u * u;
-                double x = uu * start.x + 2 * u * t * pkontrolnyX + tt * end.x;
-                double y = uu * start.y + 2 * u * t * pkontrolnyY + tt * end.y;
+        // Narciarz w punkcie t krzywej, ze śladem nart skierowanym wzdłuż trasy
+        private void drawSkier(Graphics2D g2d, double t) {
+            double x = punktX(t);
+            double y = punktY(t);
 
-                // Narciarz jako czerwony punkt
-                g2d.setColor(Color.RED);
-                g2d.fillOval((int) (x - 4), (int) (y - 4), 8, 8);
-
-                // Imitacja ruchu (wiatru) narciarza w postaci dwóch białych linii za nim
-                g2d.setColor(Color.WHITE);
-                g2d.setStroke(new BasicStroke(1.0f));
-
-                // Liczenie wektora kierunku dla następnego punktu na krzywej
-                double nextT = Math.min(1.0, t + 0.05);
-                double nextU = 1 - nextT;
-                double nextTT = nextT * nextT;
-                double nextUU = nextU * nextU;
-                double nextX = nextUU * start.x + 2 * nextU * nextT * pkontrolnyX + nextTT * end.x;
-                double nextY = nextUU * start.y + 2 * nextU * nextT * pkontrolnyY + nextTT * end.y;
-
-                // Wektor kierunkowy dla śladu narciarza
-                double dx = nextX - x;
-                double dy = nextY - y;
-                double len = Math.sqrt(dx * dx + dy * dy);
-                if (len > 0) {
-                    dx /= len;
-                    dy /= len;
-
-                    // Wektor prostopadły do kierunku ruchu - szerokość nart
-                    double perpX = -dy * 2;
-                    double perpY = dx * 2;
-
-                    // Narysuj dwa ślady nart - dwie równoległe linie
-                    g2d.drawLine(
-                            (int) (x + perpX), (int) (y + perpY),
-                            (int) (x + perpX - dx * 10), (int) (y + perpY - dy * 10));
-                    g2d.drawLine(
-                            (int) (x - perpX), (int) (y - perpY),
-                            (int) (x - perpX - dx * 10), (int) (y - perpY - dy * 10));
-                }
+            // Narciarz jako czerwony punkt
+            g2d.setColor(Color.RED);
+            g2d.fillOval((int) (x - 4), (int) (y - 4), 8, 8);
+
+            // Imitacja ruchu (wiatru) narciarza w postaci dwóch białych linii za nim
+            g2d.setColor(Color.WHITE);
+
+            // Liczenie wektora kierunku dla następnego punktu na krzywej
+            double nextT = Math.min(1.0, t + 0.05);
+            double nextX = punktX(nextT);
+            double nextY = punktY(nextT);
+
+            // Wektor kierunkowy dla śladu narciarza
+            double dx = nextX - x;
+            double dy = nextY - y;
+            double len = Math.sqrt(dx * dx + dy * dy);
+            if (len > 0) {
+                dx /= len;
+                dy /= len;
+
+                // Wektor prostopadły do kierunku ruchu - szerokość nart
+                double perpX = -dy * 2;
+                double perpY = dx * 2;
+
+                // Narysuj dwa ślady nart - dwie równoległe linie
+                g2d.drawLine(
+                        (int) (x + perpX), (int) (y + perpY),
+                        (int) (x + perpX - dx * 10), (int) (y + perpY - dy * 10));
+                g2d.drawLine(
+                        (int) (x - perpX), (int) (y - perpY),
+                        (int) (x - perpX - dx * 10), (int) (y - perpY - dy * 10));
             }
         }
     }
 
     private class StokWidok extends JPanel {
+            // Warstwy stałe rysowane raz (i przy zmianie rozmiaru okna): tło z trasami, wyciągami, tytułem i legendą
+            // oraz przezroczysta warstwa stacji, która przykrywa końce pasków i krzesełek. W każdej klatce rysowane
+            // są tylko elementy zmienne między nimi.
+            private BufferedImage warstwaTla;
+            private BufferedImage warstwaStacji;
+
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
                 Graphics2D g2d = (Graphics2D) g;
 
+                if (warstwaTla == null || warstwaTla.getWidth() != getWidth() || warstwaTla.getHeight() != getHeight()) {
+                    przygotujWarstwy();
+                }
+                g2d.drawImage(warstwaTla, 0, 0, null);
+
                 // Antyaliasing dla gładszego rysowania
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-                // Tło
-                g2d.setColor(new Color(173, 216, 230)); // Jasnoniebieski
-                g2d.fillRect(0, 0, getWidth(), getHeight());
+                Font originalFont = g2d.getFont();
+                Stroke originalStroke = g2d.getStroke();
+                long teraz = symulacja.teraz(); // Jeden czas dla całej klatki (przy odtwarzaniu - zegar śladu)
+                if (animacja != null) {
+                    rozlozZjazdy(teraz);
+                }
 
-                // Najpierw trasy - zielone linie
+                // Elementy zmienne: najpierw narciarze na trasach, potem wyciągi (serwis, krzesełka) i ich etykiety
                 for (RouteView routeView : routeViews.values()) {
                     routeView.draw(g2d);
                 }
-
-                // Następnie wyciągi - czarne lub czerwone linie
+                g2d.setFont(originalFont);
                 for (LiftView liftView : liftViews.values()) {
-                    liftView.draw(g2d);
+                    liftView.draw(g2d, teraz);
                 }
 
-                // Na końcu stacje - niebieskie koła
+                // Stacje przykrywają końce linii, a na nich liczby narciarzy
+                g2d.drawImage(warstwaStacji, 0, 0, null);
                 for (StationView stationView : stationViews.values()) {
                     stationView.draw(g2d);
                 }
 
+                g2d.setStroke(originalStroke);
+                g2d.setFont(originalFont);
+            }
+
+            private void przygotujWarstwy() {
+                int w = Math.max(1, getWidth());
+                int h = Math.max(1, getHeight());
+
+                warstwaTla = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2d = warstwaTla.createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+                // Tło
+                g2d.setColor(KOLOR_TLA);
+                g2d.fillRect(0, 0, w, h);
+
+                // Najpierw trasy - zielone linie
+                for (RouteView routeView : routeViews.values()) {
+                    routeView.drawStatic(g2d);
+                }
+
+                // Następnie wyciągi - czarne linie (serwis jest dorysowywany na czerwono w klatce)
+                for (LiftView liftView : liftViews.values()) {
+                    liftView.drawStatic(g2d);
+                }
+
                 // Tytuł symmulacji
-                Font originalFont = g2d.getFont();
-                g2d.setFont(new Font("Arial", Font.BOLD, 16));
+                g2d.setFont(CZCIONKA_TYTULU);
                 g2d.setColor(Color.BLACK);
                 g2d.drawString("Symulacja Stoku Narciarskiego", 10, 25);
 
                 // Legenda
-                drawLegend(g2d);
+                drawLegend(g2d, w);
+                g2d.dispose();
 
-                g2d.setFont(originalFont);
+                // Stacje - niebieskie koła z nazwami na przezroczystym tle
+                warstwaStacji = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+                g2d = warstwaStacji.createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                for (StationView stationView : stationViews.values()) {
+                    stationView.drawStatic(g2d);
+                }
+                g2d.dispose();
             }
 
-            private void drawLegend(Graphics2D g2d) {
+            private void drawLegend(Graphics2D g2d, int szerokosc) {
                 // Parametry legendy (ustawienie względem OX, OY, wielkość itd)
-                int legendX = getWidth() - 210;
+                int legendX = szerokosc - 210;
                 int legendY = 45;
                 int itemWys = 20;
                 int widokWielkosc = 12;
                 int textOffset = widokWielkosc + 5;
 
                 // Tło legendy - biały prostokąt
-                g2d.setColor(new Color(255, 255, 255, 200));
-                g2d.fillRect(legendX - 10, 10, 200, 165);
+                g2d.setColor(KOLOR_LEGENDY);
+                g2d.fillRect(legendX - 10, 10, 200, 185);
                 g2d.setColor(Color.BLACK);
-                g2d.drawRect(legendX - 10, 10, 200, 165);
+                g2d.drawRect(legendX - 10, 10, 200, 185);
 
                 // Nagłówek legendy
-                g2d.setFont(new Font("Arial", Font.BOLD, 14));
+                g2d.setFont(CZCIONKA_STACJI);
                 g2d.drawString("LEGENDA:", legendX, 30);
-                g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+                g2d.setFont(CZCIONKA_LEGENDY);
 
                 // Objaśnienie stacji narciarskiej
-                g2d.setColor(new Color(0, 0, 128)); // Ciemnoniebieski
+                g2d.setColor(KOLOR_STACJI); // Ciemnoniebieski
                 g2d.fillOval(legendX, legendY, widokWielkosc, widokWielkosc);
                 g2d.setColor(Color.BLACK);
                 g2d.drawString("Stacja narciarska", legendX + textOffset, legendY + widokWielkosc);
@@ -558,7 +745,7 @@ public class SkiResortGUI extends JFrame {
                 // Objaśnienie wyciągu działającego
                 legendY += itemWys;
                 g2d.setColor(Color.BLACK);
-                g2d.setStroke(new BasicStroke(2.0f));
+                g2d.setStroke(LINIA_LEGENDY);
                 g2d.drawLine(legendX, legendY + widokWielkosc / 2, legendX + widokWielkosc, legendY + widokWielkosc / 2);
                 g2d.drawString("Wyciąg (działający)", legendX + textOffset, legendY + widokWielkosc);
 
@@ -570,8 +757,8 @@ public class SkiResortGUI extends JFrame {
 
                 // Objaśnienie trasy zjazdowej
                 legendY += itemWys;
-                g2d.setColor(new Color(0, 100, 0)); // Ciemnozielony
-                g2d.setStroke(new BasicStroke(3.0f));
+                g2d.setColor(KOLOR_TRASY); // Ciemnozielony
+                g2d.setStroke(LINIA_LEGENDY_TRASY);
                 g2d.drawLine(legendX, legendY + widokWielkosc / 2, legendX + widokWielkosc, legendY + widokWielkosc / 2);
                 g2d.drawString("Trasa zjazdowa", legendX + textOffset, legendY + widokWielkosc);
 
@@ -590,6 +777,15 @@ public class SkiResortGUI extends JFrame {
                 g2d.fillOval(legendX + widokWielkosc / 4, legendY + widokWielkosc / 4, widokWielkosc / 2, widokWielkosc / 2);
                 g2d.setColor(Color.BLACK);
                 g2d.drawString("Narciarz na trasie", legendX + textOffset, legendY + widokWielkosc);
+
+                // Objaśnienie paska zagęszczenia
+                legendY += itemWys;
+                g2d.setColor(kolorZageszczenia(0.0));
+                g2d.fillRect(legendX, legendY + 3, widokWielkosc / 2, widokWielkosc - 6);
+                g2d.setColor(kolorZageszczenia(1.0));
+                g2d.fillRect(legendX + widokWielkosc / 2, legendY + 3, widokWielkosc / 2, widokWielkosc - 6);
+                g2d.setColor(Color.BLACK);
+                g2d.drawString("Zagęszczenie (> " + PROG_AGREGACJI + ")", legendX + textOffset, legendY + widokWielkosc);
             }
         }
 
@@ -600,9 +796,25 @@ public class SkiResortGUI extends JFrame {
                 e.printStackTrace();
             }
 
+            // Opcjonalnie: --config <plik lub classpath:zasob>, odtwarzanie śladu --odtworz <plik> [--tempo x]
+            String plik = null;
+            String konfiguracja = SkiResortSimulation.domyslnaKonfiguracja();
+            double tempo = 1.0;
+            for (int i = 0; i + 1 < args.length; i++) {
+                if (args[i].equals("--odtworz")) plik = args[++i];
+                else if (args[i].equals("--tempo")) tempo = Double.parseDouble(args[++i]);
+                else if (args[i].equals("--config")) konfiguracja = args[++i];
+            }
+            String plikSladu = plik;
+            String plikKonfiguracji = konfiguracja;
+            double tempoOdtwarzania = tempo;
+
             // Uruchomianie ze Swing
             SwingUtilities.invokeLater(() -> {
                 SkiResortGUI gui = new SkiResortGUI();
+                gui.plikSladu = plikSladu;
+                gui.plikKonfiguracji = plikKonfiguracji;
+                gui.tempoOdtwarzania = tempoOdtwarzania;
                 gui.start();
             });
         }
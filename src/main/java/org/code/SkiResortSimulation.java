@@ -1,11 +1,18 @@
 package org.code;
 
-import com.google.gson.Gson; // Biblioteka do parowania JSON
-import java.io.FileReader; // Do oczytywania plików
+import java.io.DataInput; // Zapis i odczyt punktu kontrolnego
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.io.Reader;
 import java.util.*; // Stryktury danych
 import java.util.concurrent.*; // Programowanie wielowątkowe
 import java.util.concurrent.atomic.AtomicBoolean; // Wielowątkowe zmienne logiczne
 import java.util.concurrent.atomic.AtomicInteger; // Wielowątkowe liczniki
+import java.util.concurrent.atomic.AtomicLong; // Wielowątkowe liczniki statystyk
+import java.util.concurrent.atomic.LongAdder; // Licznik rozłożony na komórki - tani zapis przy wielu wątkach naraz
+import java.util.function.Consumer; // Callback wywoływany po dotarciu narciarza na górę
 
 enum Status {
     WAITING, // narciarz czeka na wyciąg
@@ -19,23 +26,35 @@ enum WyciagStatus {
     MAINTENANCE // wyciąg jest w trakcie serwisu
 }
 
+// Jedna, w pełni niezależna instancja symulacji - cały stan jest w polach obiektu, więc w jednej JVM
+// może działać wiele symulacji naraz (np. przegląd parametrów)
 public class SkiResortSimulation {
     // zbiory obiektów, które przechowują wszystkie elementy symulacji
-    static List<Stacja> stacje = new ArrayList<>(); // Lista wszystkich stacji
-    static List<Trasa> trasy = new ArrayList<>(); // Lista wszystkich tras zjazdowych
-    static List<Wyciag> wyciagi = new ArrayList<>(); // Lista wszystkich wyciągów
-    static List<Narciarz> narciarze = new ArrayList<>(); // Lista wszystkich narciarzy
+    final Config cfg;
+    final List<Stacja> stacje = new ArrayList<>(); // Lista wszystkich stacji
+    final List<Trasa> trasy = new CopyOnWriteArrayList<>(); // Lista wszystkich tras - bezpieczna iteracja w GUI i TUI
+    final IndeksTras indeksTras = new IndeksTras(trasy); // Trasy zjazdowe po parze stacji (od, do)
+    final List<Wyciag> wyciagi = new ArrayList<>(); // Lista wszystkich wyciągów
+    final List<Narciarz> narciarze = new ArrayList<>(); // Lista wszystkich narciarzy
+    TablicaTrasowania tablicaTrasowania; // Ścieżki wyciągów między parami stacji
+    PlanerSerwisow planerSerwisow; // Okna serwisów wyciągów i czas odcięcia stacji
+    HarmonogramWyciagow harmonogram; // Harmonogram wyciągów w trybie wątkowym
+    SerwerHttp serwerHttp; // Metryki i migawki przez HTTP w trybie wątkowym (null - wyłączony)
+    final PublikatorMigawek migawki = new PublikatorMigawek(stacje, wyciagi, trasy); // Spójne migawki stanu dla TUI i GUI
+    SladZdarzen slad; // Binarny ślad zdarzeń (null - bez zapisu)
+    volatile PlanistaWyciagow zegar; // Źródło czasu uruchomionej symulacji (harmonogram, silnik zdarzeniowy lub odtwarzacz)
 
     // Callback aktualizujący GUI
-    private static Runnable guiUpdateCallback = null;
+    private volatile Runnable guiUpdateCallback = null;
 
     // Lock dla głównej pętli symulacji
-    private static final Object simulationLock = new Object();
-    private static volatile boolean shouldUpdate = false;
+    private final Object simulationLock = new Object();
+    private volatile boolean shouldUpdate = false;
 
     static class StationCfg {
         String name; // baza, polowa, szczyt
-        String type; // bazowa, posrednia, szczyt
+        String type; // bazowa, posrednia, szczyt - bez altitude wyznacza domyślną wysokość
+        Integer altitude; // Wysokość stacji (m n.p.m.) - wyciągi jadą w górę, trasy prowadzą w dół
     }
 
     static class RouteCfg {
@@ -51,6 +70,8 @@ public class SkiResortSimulation {
         int boardingGroupSize;
         int maintenanceTime;
         int maintenanceDuration;
+        List<String> pasy; // pasy wsiadania: "zwykly", "pojedynczy", "priorytet" (brak - jedna kolejka jak dotąd)
+        Integer maxKolejka; // limit kolejki tego wyciągu (brak - wspólny maxKolejka z konfiguracji)
     }
 
     static class Config {
@@ -59,31 +80,120 @@ public class SkiResortSimulation {
         List<LiftCfg> wyciagi;
         int liczbaNarciarzy;
         int globalBoardingInterval; // co ile sekund pojawia się jedna jednostka do wsiadania (krzesełko / gondola / orczyk)
+        String trybWatkow = "platform"; // "platform" - każdy narciarz to wątek systemowy, "virtual" - wątek wirtualny
+        String silnik = "threads"; // "threads" - symulacja w czasie rzeczywistym, "events" - symulacja zdarzeniowa z wirtualnym zegarem
+        int czasSymulacji = 8 * 3600; // ile sekund czasu stoku symuluje silnik zdarzeniowy
+        int watkiHarmonogramu = 2; // liczba wątków wspólnego harmonogramu wyciągów
+        Long seed; // ziarno losowania narciarzy (brak - losowe przy każdym uruchomieniu)
+        int okresMigawkiMs = 500; // co ile ms publikowana jest migawka stanu stoku (tryb wątkowy)
+        int animacjaFps = 60; // klatki na sekundę płynnej animacji w GUI, 0 - odświeżanie razem z TUI (co 2 s)
+        String slad; // plik binarnego śladu zdarzeń (brak - bez zapisu)
+        String wznowienie; // punkt kontrolny, od którego silnik zdarzeniowy kontynuuje (brak - zimny start)
+        String punktKontrolny; // plik, do którego silnik zdarzeniowy zapisuje stan na koniec (brak - bez zapisu)
+        String trasowanie = "najkrotsza"; // "najkrotsza" - najmniej przesiadek, "kolejki" - najkrótszy przewidywany czas z kolejkami
+        int okresTrasowaniaMs = 1000; // co ile ms odświeżane są wagi wyciągów w trasowaniu "kolejki"
+        double udzialPojedynczych = 0; // część narciarzy, którzy stają w pasie pojedynczym (jeśli wyciąg go ma)
+        double udzialPriorytetu = 0; // część narciarzy z prawem do pasa priorytetowego
+        String serwisy = "niezalezne"; // "niezalezne" - każdy wyciąg sam, "planowane" - wspólny planer serwisów
+        double opoznienieSerwisu = 0.25; // o jaką część maintenanceTime planer może opóźnić serwis do chwili małego ruchu
+        int maxKolejka = 0; // najwięcej narciarzy w kolejce do każdego wyciągu, 0 - bez limitu
+        Integer portHttp; // port serwera HTTP z metrykami na localhost (tryb wątkowy), 0 - wolny port, brak - bez serwera
     }
 
-    public static void setGuiUpdateCallback(Runnable callback) {
+    // Fabryka wątków dla narciarzy - wątki wirtualne są parkowane zamiast blokować wątek systemowy,
+    // dzięki czemu można uruchomić nawet 100k+ narciarzy (wątki nośne to mała pula ForkJoinPool)
+    static ThreadFactory fabrykaWatkowNarciarzy(String tryb) {
+        if ("virtual".equalsIgnoreCase(tryb)) {
+            return Thread.ofVirtual().name("narciarz-", 1).factory();
+        }
+        return Thread.ofPlatform().name("narciarz-", 1).factory();
+    }
+
+    // Odczyt pamięci rezydentnej procesu (RSS) w KB - tylko Linux, na innych systemach -1
+    static long odczytajRssKb() {
+        try {
+            for (String linia : java.nio.file.Files.readAllLines(java.nio.file.Path.of("/proc/self/status"))) {
+                if (linia.startsWith("VmRSS:")) {
+                    return Long.parseLong(linia.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (Exception e) {
+            // brak /proc - zwracamy -1
+        }
+        return -1;
+    }
+
+    // Utworzenie stacji, tras, wyciągów i narciarzy na podstawie konfiguracji (bez uruchamiania wątków)
+    public SkiResortSimulation(Config cfg) {
+        this.cfg = cfg;
+        zbudujModel();
+    }
+
+    public void setGuiUpdateCallback(Runnable callback) {
         guiUpdateCallback = callback;
     }
 
-    public static void triggerGuiUpdate() {
+    public void triggerGuiUpdate() {
         synchronized(simulationLock) {
             shouldUpdate = true;
             simulationLock.notify();
         }
     }
 
-    public static void main(String[] args) throws Exception {
+    // Cele zjazdu każdej stacji: stacje końcowe tras z konfiguracji, a gdy ze stacji nie prowadzi żadna trasa -
+    // dolne stacje wyciągów, które do niej dojeżdżają (trasa powstanie przy pierwszym zjeździe, jak wcześniej)
+    private void wyznaczCeleZjazdu() {
+        List<Set<Stacja>> cele = new ArrayList<>();
+        for(int i = 0; i < stacje.size(); i++) {
+            cele.add(new LinkedHashSet<>());
+        }
+        for(Trasa t : trasy) {
+            if(t.duration > 0) cele.get(t.stacja1.indeks).add(t.stacja2);
+        }
+        boolean[] zTras = new boolean[stacje.size()];
+        for(int i = 0; i < zTras.length; i++) {
+            zTras[i] = !cele.get(i).isEmpty();
+        }
+        for(Wyciag w : wyciagi) {
+            int gorna = w.trasa.stacjaGorna.indeks;
+            if(!zTras[gorna]) cele.get(gorna).add(w.trasa.stacjaDolna);
+        }
+        for(Stacja st : stacje) {
+            st.celeZjazdu = cele.get(st.indeks).toArray(new Stacja[0]);
+        }
+    }
+
+    static final String KONFIGURACJA_PLIK = "src/main/resources/config.json";
+    static final String KONFIGURACJA_ZASOB = CzytnikKonfiguracji.PREFIKS_CLASSPATH + "config.json";
 
-        // Wczytanie configu JSON
-        Gson gson = new Gson();
-        FileReader reader = new FileReader("src/main/resources/config.json");
-        Config cfg = gson.fromJson(reader, Config.class);
-        reader.close();
+    // Domyślna konfiguracja: plik z katalogu projektu, a poza nim (np. uruchomienie z jar) zasób z classpath
+    static String domyslnaKonfiguracja() {
+        return java.nio.file.Files.exists(Path.of(KONFIGURACJA_PLIK)) ? KONFIGURACJA_PLIK : KONFIGURACJA_ZASOB;
+    }
+
+    // Wczytanie i sprawdzenie configu JSON z pliku lub zasobu ("classpath:..."), z czasem wczytania na stderr
+    static Config wczytajKonfiguracje(String zrodlo) throws IOException {
+        long start = System.nanoTime();
+        Config cfg = CzytnikKonfiguracji.wczytaj(zrodlo);
+        System.err.printf(Locale.ROOT, "Konfiguracja %s: %d stacji, %d tras, %d wyciągów - wczytana w %.1f ms%n", zrodlo,
+                cfg.stacje.size(), cfg.trasy.size(), cfg.wyciagi.size(), (System.nanoTime() - start) / 1e6);
+        return cfg;
+    }
 
+    // Wczytanie i sprawdzenie configu JSON z gotowego strumienia
+    static Config wczytajKonfiguracje(Reader reader) {
+        try {
+            return CzytnikKonfiguracji.wczytaj(reader, "konfiguracja");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void zbudujModel() {
         // Tworzenie stacji na podstawie konfiguracji
         Map<String, Stacja> stationMap = new HashMap<>(); // Mapa do szybkiego wyszukiwania stacji po nazwie
         for (StationCfg sc : cfg.stacje) {
-            Stacja st = new Stacja(sc.name, sc.type);
+            Stacja st = sc.altitude != null ? new Stacja(sc.name, sc.type, sc.altitude) : new Stacja(sc.name, sc.type);
             stacje.add(st);
             stationMap.put(sc.name, st);
         }
@@ -95,7 +205,7 @@ public class SkiResortSimulation {
             Stacja a = stationMap.get(parts[0]); // Pobranie stacji początkowej
             Stacja b = stationMap.get(parts[1]); // Pobranie stacji końcowej
             Trasa tr = new Trasa(rc.name, a, b, rc.duration); // Utworzenie nowej trasy
-            trasy.add(tr);
+            indeksTras.dodaj(tr);
             routeMap.put(rc.name, tr);
         }
 
@@ -108,7 +218,7 @@ public class SkiResortSimulation {
                 Stacja a = stationMap.get(parts[0]); // Stacja dolna
                 Stacja b = stationMap.get(parts[1]); // Stacja górna
                 tr = new Trasa(lc.route, a, b, 0); // Czas zjazdu = 0 (tylko dla wyciągu, nie do zjazdu)
-                trasy.add(tr);
+                indeksTras.dodaj(tr);
                 routeMap.put(lc.route, tr);
             }
             // Utworzenie wyciągu z podanymi parametrami
@@ -117,15 +227,50 @@ public class SkiResortSimulation {
                     lc.maintenanceTime, lc.maintenanceDuration,
                     cfg.globalBoardingInterval // Przekazujemy globalny interwał wsiadania
             );
+            w.migawki = migawki;
+            w.maxKolejka = lc.maxKolejka != null ? lc.maxKolejka : cfg.maxKolejka;
+            if(lc.pasy != null) {
+                w.ustawPasy(lc.pasy.stream().map(PasWsiadania::zNazwy).toArray(PasWsiadania[]::new));
+            }
             wyciagi.add(w);
         }
 
+        // Ścieżki wyciągów ze stacji - wiersz tablicy liczony przy pierwszym użyciu, unieważniany przy zmianie stanu wyciągu
+        tablicaTrasowania = new TablicaTrasowania(stacje, wyciagi);
+        if("kolejki".equalsIgnoreCase(cfg.trasowanie)) {
+            tablicaTrasowania.wlaczWagiKolejek(cfg.okresTrasowaniaMs);
+        }
+        wyznaczCeleZjazdu();
+
+        // Serwisy - planer zawsze liczy czas odcięcia stacji, a przy "planowane" także rozkłada okna serwisów
+        planerSerwisow = new PlanerSerwisow(stacje, wyciagi, "planowane".equalsIgnoreCase(cfg.serwisy),
+                cfg.opoznienieSerwisu);
+        for(Wyciag w : wyciagi) {
+            w.planerSerwisow = planerSerwisow;
+        }
+
         // Tworzenie obiektów narciarzy
         Stacja baza = stationMap.get("baza"); // Wszyscy narciarze zaczynają w stacji bazowej
+        if(baza == null) {
+            // Stok bez stacji "baza" - start w najniżej położonej stacji
+            baza = stacje.stream().min(Comparator.comparingInt(Stacja::getWysokosc)).orElseThrow();
+        }
         for(int i = 1; i<= cfg.liczbaNarciarzy; i++) {
-            Narciarz nar = new Narciarz(i, baza, wyciagi); // ID narciarza, stacja początkowa, lista wyciągów
+            Narciarz nar = new Narciarz(i, baza, this); // ID narciarza, stacja początkowa, symulacja
+            if(cfg.seed != null) {
+                nar.random = new Random(cfg.seed * 1_000_003L + i); // Każdy narciarz ma własny, powtarzalny ciąg losowań
+            }
             narciarze.add(nar);
         }
+        if(cfg.udzialPojedynczych > 0 || cfg.udzialPriorytetu > 0) {
+            // Osobny generator - pasy nie zmieniają losowań samych narciarzy
+            Random losPasow = cfg.seed != null ? new Random(cfg.seed * 31 + 7) : new Random();
+            for(Narciarz nar : narciarze) {
+                double los = losPasow.nextDouble();
+                if(los < cfg.udzialPriorytetu) nar.pas = PasWsiadania.PRIORYTET;
+                else if(los < cfg.udzialPriorytetu + cfg.udzialPojedynczych) nar.pas = PasWsiadania.POJEDYNCZY;
+            }
+        }
 
         // Rejestracja narciarzy na stacji startowej
         for(Narciarz nar : narciarze) {
@@ -134,14 +279,144 @@ public class SkiResortSimulation {
                 nar.status = Status.WAITING; // Ustawienie statusu na "oczekujący"
             }
         }
+    }
+
+    // Otwarcie pliku śladu (jeśli jest w konfiguracji) i podpięcie go pod wyciągi i indeks tras
+    private void otworzSlad(long start) {
+        if (cfg.slad == null) return;
+        SladZdarzen.sprawdzRozmiar(cfg.slad, stacje.size(), wyciagi.size(), trasy.size());
+        try {
+            slad = new SladZdarzen(Path.of(cfg.slad), cfg);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie można utworzyć pliku śladu " + cfg.slad, e);
+        }
+        indeksTras.slad = slad;
+        for (Wyciag w : wyciagi) {
+            w.slad = slad;
+        }
+        slad.zapisz(SladZdarzen.START, start, 0, 0, 0);
+    }
+
+    // Aktualny czas uruchomionej symulacji (przed uruchomieniem - zegar systemowy)
+    public long teraz() {
+        PlanistaWyciagow z = zegar;
+        return z != null ? z.teraz() : System.currentTimeMillis();
+    }
+
+    // Symulacja zdarzeniowa przez cfg.czasSymulacji sekund (od zera albo od wczytanego punktu kontrolnego)
+    // - zwraca silnik (z liczbą zdarzeń i czasem wirtualnym)
+    SymulacjaZdarzeniowa uruchomZdarzeniowo() {
+        SymulacjaZdarzeniowa des = new SymulacjaZdarzeniowa(wyciagi, narciarze);
+        zegar = des;
+        try {
+            if (cfg.wznowienie != null) {
+                if (cfg.slad != null) {
+                    // Odtwarzacz buduje stan od zimnego startu - ślad od środka przebiegu byłby nieodtwarzalny
+                    throw new IllegalStateException("Ślad zdarzeń nie jest obsługiwany przy wznowieniu z punktu kontrolnego");
+                }
+                PunktKontrolny.wczytaj(Path.of(cfg.wznowienie), this, des);
+            }
+            otworzSlad(des.teraz());
+            des.uruchom(des.teraz() + cfg.czasSymulacji * 1000L);
+            if (slad != null) {
+                slad.zakoncz(des.teraz());
+            }
+            if (cfg.punktKontrolny != null) {
+                PunktKontrolny.zapisz(Path.of(cfg.punktKontrolny), this, des);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Błąd punktu kontrolnego", e);
+        }
+        return des;
+    }
 
-        // Start wątków (najpierw wyciągi, potem narciarze)
+    // Start wątków (najpierw wyciągi, potem narciarze)
+    void uruchomWatki() {
+        if (cfg.wznowienie != null || cfg.punktKontrolny != null) {
+            // Stan wątków (miejsce w pętli run(), czekanie na semaforze) nie daje się zapisać - tylko silnik zdarzeniowy
+            throw new IllegalStateException("Punkt kontrolny jest dostępny tylko dla silnika zdarzeniowego (silnik: events)");
+        }
+        migawki.uruchom(cfg.okresMigawkiMs);
+        if (cfg.portHttp != null) {
+            try {
+                serwerHttp = SerwerHttp.uruchom(migawki, cfg.portHttp, cfg.okresMigawkiMs);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Nie można uruchomić serwera HTTP na porcie " + cfg.portHttp, e);
+            }
+            System.out.println("Serwer HTTP: http://127.0.0.1:" + serwerHttp.getPort() + "/metrics, /stan, /zdarzenia");
+        }
+        harmonogram = new HarmonogramWyciagow(cfg.watkiHarmonogramu);
+        zegar = harmonogram;
+        otworzSlad(harmonogram.teraz());
         for (Wyciag w : wyciagi) {
-            w.start(); // Uruchomienie wątku wyciągu
+            w.start(harmonogram); // Uruchomienie wyciągu we wspólnym harmonogramie
         }
+        long startNarciarzy = System.nanoTime();
+        ThreadFactory fabryka = fabrykaWatkowNarciarzy(cfg.trybWatkow);
         for (Narciarz nar : narciarze) {
-            nar.start();
+            nar.start(fabryka);
         }
+        long czasStartuMs = (System.nanoTime() - startNarciarzy) / 1_000_000;
+        System.out.println("Uruchomiono " + narciarze.size() + " narciarzy (wątki: " + cfg.trybWatkow + ") w " +
+                czasStartuMs + " ms, RSS: " + odczytajRssKb() / 1024 + " MB");
+    }
+
+    // Zatrzymanie symulacji wątkowej - przerwanie narciarzy i wyłączenie harmonogramu wyciągów
+    void zatrzymajWatki() throws InterruptedException {
+        for (Narciarz nar : narciarze) {
+            nar.zatrzymaj();
+        }
+        for (Narciarz nar : narciarze) {
+            nar.czekajNaZakonczenie();
+        }
+        if (harmonogram != null) {
+            harmonogram.zatrzymaj();
+        }
+        migawki.zatrzymaj();
+        migawki.opublikuj(); // Stan końcowy
+        if (serwerHttp != null) {
+            serwerHttp.zatrzymaj();
+            serwerHttp = null;
+        }
+        if (slad != null) {
+            slad.zakoncz(teraz());
+        }
+    }
+
+    // Ostatnia opublikowana migawka stanu stoku (przed pierwszą publikacją - składana od razu)
+    public MigawkaStoku getMigawka() {
+        MigawkaStoku m = migawki.getAktualna();
+        return m != null ? m : migawki.opublikuj();
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        // Wczytanie configu JSON - ścieżka lub "classpath:..." jako argument, bez argumentu konfiguracja domyślna
+        Config cfg;
+        try {
+            cfg = wczytajKonfiguracje(args.length > 0 ? args[0] : domyslnaKonfiguracja());
+        } catch (BladKonfiguracji e) {
+            System.err.println("Błąd konfiguracji: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        new SkiResortSimulation(cfg).uruchom();
+    }
+
+    // Uruchomienie symulacji: zdarzeniowej (raport na koniec) albo wątkowej z pętlą TUI (bez końca)
+    public void uruchom() throws InterruptedException {
+        // Silnik zdarzeniowy - cała symulacja liczona na wirtualnym zegarze, bez wątków i bez czekania
+        if ("events".equalsIgnoreCase(cfg.silnik)) {
+            long startDes = System.nanoTime();
+            SymulacjaZdarzeniowa des = uruchomZdarzeniowo();
+            long czasDesMs = (System.nanoTime() - startDes) / 1_000_000;
+            wypiszStan(migawki.opublikuj());
+            System.out.println("Symulacja zdarzeniowa: " + cfg.czasSymulacji + " s czasu stoku (" +
+                    des.getLiczbaZdarzen() + " zdarzeń) w " + czasDesMs + " ms");
+            return;
+        }
+
+        uruchomWatki();
 
         // Wątek do okresowego wyzwalania aktualizacji
         Timer updateTimer = new Timer(true);
@@ -161,26 +436,7 @@ public class SkiResortSimulation {
                 shouldUpdate = false;
             }
 
-            System.out.println("========================================");
-
-            // Wypisanie informacji o stacjach
-            for(Stacja st :stacje) {
-                System.out.println("Stacja " + st.nazwa + ": " + st.getLiczbaNarciarzy() + " narciarzy");
-            }
-
-            // Wypisanie informacji o wyciągach
-            for(Wyciag w : wyciagi) {
-                String statusText = w.getStatus() == WyciagStatus.MAINTENANCE ? " [SERWIS]" : "";
-                System.out.println("Wyciąg " + w.name + " (" + w.trasa.name + "): " + w.getNaWyciagu() +
-                        " na wyciągu" + statusText);
-            }
-
-            // Wypisanie informacji o trasach zjazdowych
-            for(Trasa tr : trasy) {
-                if(tr.duration > 0) { // Tylko trasy faktycznie używane do zjazdu (nie zerowe)
-                    System.out.println("Trasa " + tr.name + ": " + tr.getNaTrasie() + " w trakcie zjazdu");
-                }
-            }
+            wypiszStan(getMigawka()); // Jeden spójny stan zamiast odczytu wszystkich liczników po kolei
 
             // Wywołanie callbacku aktualizacji GUI
             if(guiUpdateCallback != null) {
@@ -189,44 +445,93 @@ public class SkiResortSimulation {
 
         }
     }
+
+    // Wypisanie statystyk symulacji z migawki (wspólne dla TUI i raportu końcowego silnika zdarzeniowego)
+    void wypiszStan(MigawkaStoku migawka) {
+        System.out.println("========================================");
+
+        // Wypisanie informacji o stacjach
+        for(MigawkaStoku.StanStacji st : migawka.stacje) {
+            System.out.println("Stacja " + st.nazwa + ": " + st.narciarzy + " narciarzy");
+        }
+
+        // Wypisanie informacji o wyciągach
+        for(MigawkaStoku.StanWyciagu w : migawka.wyciagi) {
+            String statusText = w.status == WyciagStatus.MAINTENANCE ? " [SERWIS]" : "";
+            System.out.println("Wyciąg " + w.nazwa + " (" + w.trasa + "): " + w.naWyciagu +
+                    " na wyciągu, " + w.przejazdy + " przejazdów, " + w.serwisy + " serwisów" + statusText);
+            System.out.println(String.format(Locale.ROOT,
+                    "    oczekiwanie p50/p99/max: %.1f/%.1f/%.1f s, %.1f przejazdów/min, wypełnienie %.0f%%, " +
+                    "utracone przez serwis: %d miejsc (%d s)",
+                    w.oczekiwanieP50Ms / 1000.0, w.oczekiwanieP99Ms / 1000.0,
+                    w.oczekiwanieMaxMs / 1000.0, w.przejazdyNaMinute, w.wypelnienie * 100,
+                    w.utraconeMiejsca, w.czasNiedostepnosciMs / 1000));
+        }
+
+        // Wypisanie informacji o trasach zjazdowych
+        for(MigawkaStoku.StanTrasy tr : migawka.trasy) {
+            if(tr.czasZjazdu > 0) { // Tylko trasy faktycznie używane do zjazdu (nie zerowe)
+                System.out.println("Trasa " + tr.nazwa + ": " + tr.naTrasie + " w trakcie zjazdu");
+            }
+        }
+
+        // Sumy z jednego przekroju - zawsze dają liczbę wszystkich narciarzy (chyba że migawka jest niespójna)
+        System.out.println("Razem: " + migawka.naStacjach + " na stacjach, " + migawka.naWyciagach + " na wyciągach, " +
+                migawka.naTrasach + " na trasach" + (migawka.spojna ? "" : " (migawka niespójna)"));
+    }
 }
 
 class Stacja {
     String nazwa;
     String typ;
-    private AtomicInteger liczbaNarciarzy = new AtomicInteger(0);
-    private int poziom; // 0 - baza, 1 - pośrednia, 2 - szczyt
+    // LongAdder zamiast AtomicInteger - w stacji bazowej każdy przyjazd i odjazd to zapis z innego wątku,
+    // a odczyt (TUI/GUI) jest rzadki, więc sumowanie komórek przy odczycie jest tanie
+    private final LongAdder liczbaNarciarzy = new LongAdder();
+    private final int wysokosc; // m n.p.m. - wyznacza kierunek wyciągów i tras oraz położenie w GUI
+    int indeks; // Numer stacji w tablicy trasowania
+    Stacja[] celeZjazdu = new Stacja[0]; // Stacje, do których można stąd zjechać (ustalane przy budowie modelu)
 
     // Kontrstruktor stacji
-    public Stacja(String nazwa, String typ) {
+    public Stacja(String nazwa, String typ, int wysokosc) {
         this.nazwa = nazwa;
         this.typ = typ;
-        this.poziom = okreslPoziom();
+        this.wysokosc = wysokosc;
     }
 
-    // Metoda określająca poziom stacji na podstawie nazwy i typu
-    private int okreslPoziom() {
-        String t = typ.toLowerCase();
-        if(t.contains("baz")) return 0;
-        if(t.contains("posred") || t.contains("pol")) return 1;
-        if(t.contains("szczyt")) return 2;
-        return 0;
+    // Stacja bez podanej wysokości - wysokość z typu, jak w pierwotnym stoku z trzema poziomami
+    public Stacja(String nazwa, String typ) {
+        this(nazwa, typ, wysokoscZTypu(typ));
+    }
+
+    // Domyślna wysokość na podstawie typu stacji
+    static int wysokoscZTypu(String typ) {
+        String t = typ == null ? "" : typ.toLowerCase();
+        if(t.contains("baz")) return 1000;
+        if(t.contains("posred") || t.contains("pol")) return 1400;
+        if(t.contains("szczyt")) return 1800;
+        return 1000;
     }
 
-    public int getPoziom() {
-        return poziom;
+    public int getWysokosc() {
+        return wysokosc;
     }
 
     public void narciarzPrzybyl(Narciarz nar) {
-        liczbaNarciarzy.incrementAndGet(); // Zwiększenie licznika narciarzy na stacji
+        liczbaNarciarzy.increment(); // Zwiększenie licznika narciarzy na stacji
     }
 
     public void narciarzOdszedl(Narciarz nar) {
-        liczbaNarciarzy.decrementAndGet(); // Zmniejszenie licznika narciarzy na stacji
+        liczbaNarciarzy.decrement(); // Zmniejszenie licznika narciarzy na stacji
     }
 
     public int getLiczbaNarciarzy() {
-        return liczbaNarciarzy.get();
+        return liczbaNarciarzy.intValue();
+    }
+
+    // Przywrócenie licznika z punktu kontrolnego
+    void przywrocLiczbe(long liczba) {
+        liczbaNarciarzy.reset();
+        liczbaNarciarzy.add(liczba);
     }
 }
 
@@ -237,8 +542,11 @@ class Trasa {
     Stacja stacjaDolna;
     Stacja stacjaGorna;
     int duration;
+    int indeks; // Pozycja na liście tras symulacji
 
-    private AtomicInteger naTrasie = new AtomicInteger(0);
+    private final LongAdder naTrasie = new LongAdder(); // Tak jak na stacji - wielu piszących, rzadki odczyt
+    private final LongAdder zjazdy = new LongAdder(); // Licznik zakończonych zjazdów (statystyka)
+    final Set<Narciarz> zjezdzajacy = ConcurrentHashMap.newKeySet(); // Trwające zjazdy - animacja w GUI bez przeglądu wszystkich narciarzy
 
     // Konstruktor trasy
     public Trasa(String name, Stacja s1, Stacja s2, int duration) {
@@ -247,9 +555,9 @@ class Trasa {
         this.stacja2 = s2;
         this.duration = duration;
 
-        // Określenie, która stacja jest dolna, a która górna na podstawie poziomu
+        // Określenie, która stacja jest dolna, a która górna na podstawie wysokości
         if (s1 != null && s2 != null) {
-            if(s1.getPoziom() <= s2.getPoziom()){
+            if(s1.getWysokosc() <= s2.getWysokosc()){
                 stacjaDolna = s1;
                 stacjaGorna = s2;
             }
@@ -261,133 +569,207 @@ class Trasa {
     }
 
     public void narciarzStart() {
-        naTrasie.incrementAndGet(); // Zwiększenie licznika narciarzy na trasie
+        naTrasie.increment(); // Zwiększenie licznika narciarzy na trasie
     }
 
     public void narciarzKoniec() {
-        naTrasie.decrementAndGet();
+        naTrasie.decrement();
+        zjazdy.increment();
+    }
+
+    public long getZjazdy() {
+        return zjazdy.sum();
     }
 
     public int getNaTrasie() {
-        return naTrasie.get();
+        return naTrasie.intValue();
+    }
+
+    // Przywrócenie liczników z punktu kontrolnego
+    void przywrocLiczniki(long naTrasie, long zjazdy) {
+        this.naTrasie.reset();
+        this.naTrasie.add(naTrasie);
+        this.zjazdy.reset();
+        this.zjazdy.add(zjazdy);
     }
 }
 
-// Dziedziczy po Thread - każdy narciarz to osobny wątek
-class Narciarz extends Thread {
+// Każdy narciarz to osobne zadanie uruchamiane na własnym wątku (platformowym lub wirtualnym)
+class Narciarz implements Runnable {
     int id;
     Stacja aktualnaStacja;
     Status status;
-    private List<Wyciag> wyciagi;
-    private Random random = new Random();
+    // Trwający zjazd i czas jego rozpoczęcia - tylko do animacji w GUI, pozycja jest liczona przy rysowaniu
+    volatile Trasa aktualnyZjazd;
+    volatile long poczatekZjazdu;
+    private final SkiResortSimulation symulacja; // Symulacja, do której należy narciarz (stacje, trasy, ścieżki)
+    Random random = new Random();
     Semaphore semaforDojechal = new Semaphore(0); // Semafor do synchronizacji z wyciągiem
+    private Thread watek; // Wątek, na którym działa narciarz
+    long czasDolaczenia; // Chwila dołączenia do kolejki wyciągu (zapisywana przed put, odczytywana po poll)
+    PasWsiadania pas = PasWsiadania.ZWYKLY; // Pas, w którym staje, jeśli wyciąg go ma (udziały z konfiguracji)
+    Wyciag odrzucil; // Wyciąg, z którego pełnej kolejki narciarz ostatnio zrezygnował (null - idzie swoją drogą)
+    int odrzuceniaZRzedu; // Rezygnacje bez ruszenia dalej - po PROBY_PRZEKIEROWANIA narciarz robi przerwę
+    static final int PROBY_PRZEKIEROWANIA = 3;
 
     // Konstruktor narciarza
-    public Narciarz(int id, Stacja start, List<Wyciag> wyciagi) {
+    public Narciarz(int id, Stacja start, SkiResortSimulation symulacja) {
         this.id = id;
         this.aktualnaStacja = start;
         this.status = Status.WAITING; // Początkowy status - oczekujący
-        this.wyciagi = wyciagi;
+        this.symulacja = symulacja;
+    }
+
+    // Uruchomienie narciarza na wątku z podanej fabryki (platformowej lub wirtualnej)
+    public void start(ThreadFactory fabryka) {
+        watek = fabryka.newThread(this);
+        watek.start();
+    }
+
+    // Przerwanie wątku narciarza - kończy pętlę run() przy najbliższym czekaniu
+    public void zatrzymaj() {
+        if(watek != null) watek.interrupt();
+    }
+
+    public void czekajNaZakonczenie() throws InterruptedException {
+        if(watek != null) watek.join();
     }
 
     public void powiadomDojechal() {
         semaforDojechal.release(); // Zwolnienie semafora - narciarz może kontynuować działanie
     }
 
-    // Narciarz oczekuje, aż wyciąg nie będzie w serwisie i dołącza do kolejki w wyciągu
-    public void wsiadzNaWyciag(Wyciag wyciag) throws InterruptedException {
-        // Pasywne czekanie na dostępność wyciągu używając wait/notify
-        synchronized(wyciag.maintenanceLock) {
-            while(wyciag.getStatus() == WyciagStatus.MAINTENANCE || wyciag.isMaintenancePending()) {
-                wyciag.maintenanceLock.wait(); // Pasywne czekanie - wątek śpi
-            }
+    // Narciarz podchodzi do wyciągu: przy pełnej kolejce (maxKolejka) rezygnuje i zwraca false - wybierze wtedy inny
+    // cel ze stacji, na której stoi. Wspólne dla wątku narciarza i silnika zdarzeniowego
+    boolean podejdzDoWyciagu(Wyciag w, long teraz) {
+        if(!w.przyjmie()) {
+            w.odrzuc(this, teraz);
+            odrzucil = w;
+            odrzuceniaZRzedu++;
+            return false;
         }
-        wyciag.kolejkaOczekujacych.put(this); // Dodanie narciarza do kolejki oczekujących
-        semaforDojechal.acquire(); // Blokada - czeka, aż wyciąg powiadomi o dotarciu
+        ruszyl(teraz);
+        return true;
     }
 
-    // Wybór losowej stacji docelowej (zawsze wybiera stację na innym poziomie niż obecnie się znajduje)
-    private Stacja wybierzLosowaStacjeDocelowa() {
-        List<Stacja> cele = new ArrayList<>(); // Lista możliwych stacji docelowych
-        int p = aktualnaStacja.getPoziom();
-        if(p == 0) {
-            // jest w bazie, wybiera pośrednią lub szczyt (1 lub 2)
-            for(Stacja st : SkiResortSimulation.stacje) {
-                if(st.getPoziom() > 0) cele.add(st);
-            }
-        } else if (p == 1) {
-            for(Stacja st : SkiResortSimulation.stacje) {
-                if(st.getPoziom() != 1) cele.add(st);
-            }
-        } else {
-            for(Stacja st : SkiResortSimulation.stacje) {
-                if(st.getPoziom() < 2) cele.add(st);
-            }
+    // Narciarz ruszył dalej (do kolejki albo na zjazd) - po rezygnacji to przekierowanie, liczone przy wyciągu,
+    // który go odrzucił
+    void ruszyl(long teraz) {
+        if(odrzucil != null) {
+            odrzucil.przekierowano(this, teraz);
+            odrzucil = null;
         }
-        if(cele.isEmpty()) return null;
-        return cele.get(random.nextInt(cele.size())); // Wybór losowej stacji z listy
+        odrzuceniaZRzedu = 0;
     }
 
-    // Narciarz najpierw tworzy "mapę" i szuka listy wyciągów jakimi ma dostać się do wybranej stacji, a potem odtwarza ją podczas przmieszczenia się na stoku
-    private List<Wyciag> znajdzSciezkeWyciagow(Stacja from, Stacja to) {
-        Map<Stacja, Wyciag> poprzedni = new HashMap<>();
-        Queue<Stacja> kolejka = new ArrayDeque<>(); // Kolejka stacji do przetworzenia
-        Set<Stacja> odwiedzone = new HashSet<>(); // Zbiór odwiedzonych stacji
-        kolejka.add(from); // Dodanie stacji początkowej
-        odwiedzone.add(from); // Oznaczenie jako odwiedzoną
-
-        Stacja dest = null;
-        while (!kolejka.isEmpty()) {
-            Stacja cur = kolejka.poll(); // Pobieranie następnej stacji z kolejki
-            if (cur == to) {
-                dest = cur; // cur - current
-                break;
-            }
+    // Ile narciarz czeka przed kolejną decyzją po rezygnacji (ms): 0 - od razu szuka innej drogi, a po kilku
+    // rezygnacjach z rzędu robi przerwę, aż kolejka, z której zrezygnował, powinna się skrócić (przewidywany czas
+    // przejścia przez nią) - przy przeładowanym stoku nie krąży między pełnymi kolejkami
+    long przerwaPoOdrzuceniu() {
+        if(odrzuceniaZRzedu < PROBY_PRZEKIEROWANIA) return 0;
+        long przerwa = odrzucil.przewidywanyCzasMs();
+        odrzucil = null;
+        odrzuceniaZRzedu = 0;
+        return przerwa;
+    }
 
-            // Przeglądanie wszystkich wyciągów
-            for (Wyciag w : wyciagi) {
-                // Pomijamy wyciągi w serwisie
-                if(w.getStatus() == WyciagStatus.MAINTENANCE || w.isMaintenancePending()) continue;
-
-                // Sprawdzamy czy wyciąg zaczyna się w aktualnej stacji
-                if(w.trasa.stacjaDolna == cur) {
-                    Stacja next = w.trasa.stacjaGorna; // Następna stacja to górna stacja wyciągu
-                    if(!odwiedzone.contains(next)) { // Jeśli jeszcze nie odwiedzona
-                        odwiedzone.add(next);
-                        poprzedni.put(next, w);
-                        kolejka.add(next);
-                    }
-                }
-            }
+    // Narciarz dołącza do kolejki w wyciągu - przy zamkniętej bramce (serwis) wyciąg wpisze go do kolejki po serwisie
+    public void wsiadzNaWyciag(Wyciag wyciag) throws InterruptedException {
+        if(wyciag.bramka.wejdz(this)) {
+            wyciag.dolaczDoKolejki(this); // Dodanie narciarza do kolejki oczekujących
         }
+        semaforDojechal.acquire(); // Blokada - czeka, aż wyciąg powiadomi o dotarciu (także po czekaniu na serwis)
+    }
 
-        // Odtworzenie ścieżki od stacji docelowej do początkowej
-        List<Wyciag> sciezka = new ArrayList<>();
-        if(dest != null) {
-            Stacja cur = dest;
-            while(cur != from) {
-                Wyciag w = poprzedni.get(cur);
-                if(w == null) break;
-                sciezka.add(0, w); // Dodawanie na początek listy (odwrócona kolejność)
-                cur = w.trasa.stacjaDolna;
-            }
-        }
-        return sciezka; // Zwrócenie znalezionej ścieżki wyciągów
+    // Wybór losowej stacji docelowej: jedna z osiągalnych teraz wyciągami (w górę) albo z celów zjazdu (w dół).
+    // Obie listy są gotowe (wiersz tablicy trasowania i cele stacji), więc losowanie nie zależy od liczby stacji
+    Stacja wybierzLosowaStacjeDocelowa() {
+        symulacja.tablicaTrasowania.odswiez(symulacja.teraz()); // Wagi kolejek (tylko w trasowaniu "kolejki")
+        Stacja[] wGore = symulacja.tablicaTrasowania.osiagalne(aktualnaStacja);
+        Stacja[] wDol = aktualnaStacja.celeZjazdu;
+        int liczba = wGore.length + wDol.length;
+        if(liczba == 0) return null;
+        int k = random.nextInt(liczba);
+        return k < wGore.length ? wGore[k] : wDol[k - wGore.length];
+    }
+
+    // Lista wyciągów, którymi narciarz dostanie się do wybranej stacji - gotowa ścieżka z tablicy trasowania
+    // (niezmienna tablica, bez BFS i bez alokacji przy każdym wjeździe)
+    Wyciag[] znajdzSciezkeWyciagow(Stacja from, Stacja to) {
+        return symulacja.tablicaTrasowania.sciezka(from, to);
+    }
+
+    // Wyciąg ze ścieżki albo - w trasowaniu "kolejki" - równoległy do niego, przy którym jest krótsza kolejka
+    Wyciag wybierzWyciag(Wyciag zeSciezki) {
+        return symulacja.tablicaTrasowania.wybierzRownolegly(zeSciezki);
     }
 
     // Metoda znajdująca lub tworząca trasę zjazdową między stacjami
-    private Trasa znajdzTraseZjazdu(Stacja from, Stacja to) {
-        String nazwa = from.nazwa + "-" + to.nazwa;
-        // Najpierw szukamy istniejącej trasy
-        for (Trasa t : SkiResortSimulation.trasy) {
-            if(t.name.equals(nazwa) && t.duration > 0) return t;
+    Trasa znajdzTraseZjazdu(Stacja from, Stacja to) {
+        // Wyszukiwanie w indeksie po parze stacji, a jeśli nie ma - atomowe utworzenie nowej trasy
+        return symulacja.indeksTras.znajdzLubUtworz(from, to, random);
+    }
+
+    // Stan do punktu kontrolnego (bez generatora losowego - zapisuje go PunktKontrolny)
+    void zapiszStan(DataOutput out) throws IOException {
+        out.writeInt(aktualnaStacja.indeks);
+        out.writeByte(status.ordinal());
+        Trasa zjazd = aktualnyZjazd;
+        out.writeInt(zjazd == null ? -1 : zjazd.indeks);
+        out.writeLong(poczatekZjazdu);
+        out.writeLong(czasDolaczenia);
+        out.writeByte(pas.ordinal());
+        out.writeInt(odrzucil == null ? -1 : odrzucil.indeks);
+        out.writeByte(odrzuceniaZRzedu);
+    }
+
+    void wczytajStan(DataInput in) throws IOException {
+        aktualnaStacja = symulacja.stacje.get(in.readInt());
+        status = Status.values()[in.readByte()];
+        int zjazd = in.readInt();
+        poczatekZjazdu = in.readLong();
+        aktualnyZjazd = zjazd < 0 ? null : symulacja.trasy.get(zjazd);
+        if (aktualnyZjazd != null) aktualnyZjazd.zjezdzajacy.add(this);
+        czasDolaczenia = in.readLong();
+        pas = PasWsiadania.values()[in.readByte()];
+        int wyciag = in.readInt();
+        odrzucil = wyciag < 0 ? null : symulacja.wyciagi.get(wyciag);
+        odrzuceniaZRzedu = in.readUnsignedByte();
+    }
+
+    // Zmiana statusu z zapisem do śladu zdarzeń, obiekt - stacja, wyciąg lub trasa (zależnie od statusu)
+    void ustawStatus(Status nowy, int obiekt, long teraz) {
+        status = nowy;
+        SladZdarzen slad = symulacja == null ? null : symulacja.slad;
+        if (slad != null) {
+            slad.status(teraz, this, nowy, obiekt);
         }
+    }
+
+    // Przejście stacja -> trasa (wspólne dla wątku narciarza i silnika zdarzeniowego), teraz - czas rozpoczęcia
+    void rozpocznijZjazd(Trasa zjazd, long teraz) {
+        poczatekZjazdu = teraz; // Najpierw czas, potem trasa - GUI czyta w odwrotnej kolejności
+        aktualnyZjazd = zjazd;
+        zjazd.zjezdzajacy.add(this);
+        PublikatorMigawek migawki = symulacja.migawki;
+        migawki.poczatekPrzejscia();
+        aktualnaStacja.narciarzOdszedl(this); // Opuszczenie stacji
+        zjazd.narciarzStart(); // Rejestracja rozpoczęcia zjazdu
+        migawki.koniecPrzejscia();
+        ustawStatus(Status.SKIING, zjazd.indeks, teraz);
+    }
 
-        // Jeśli nie ma, tworzymy nową z losowym czasem zjazdu (5-10 sekund)
-        int d = 5 + random.nextInt(5);
-        Trasa nowa = new Trasa(nazwa, from, to, d);
-        SkiResortSimulation.trasy.add(nowa);
-        return nowa;
+    // Przejście trasa -> stacja docelowa
+    void zakonczZjazd(Trasa zjazd, Stacja cel, long teraz) {
+        PublikatorMigawek migawki = symulacja.migawki;
+        migawki.poczatekPrzejscia();
+        zjazd.narciarzKoniec();
+        aktualnaStacja = cel; // Aktualizacja pozycji
+        aktualnaStacja.narciarzPrzybyl(this); // Rejestracja przybycia na nową stację
+        migawki.koniecPrzejscia();
+        zjazd.zjezdzajacy.remove(this);
+        aktualnyZjazd = null;
+        ustawStatus(Status.WAITING, cel.indeks, teraz); // Czeka na kolejną aktywność
     }
 
     public void run (){
@@ -401,39 +783,45 @@ class Narciarz extends Thread {
                 }
 
                 // Wjazd w górę, jeśli cel jest wyżej niż aktualna stacja
-                if(cel.getPoziom() > aktualnaStacja.getPoziom()) {
+                if(cel.getWysokosc() > aktualnaStacja.getWysokosc()) {
                     // Znajduje ścieżkę wyciągów do celu
-                    List<Wyciag> sciezka = znajdzSciezkeWyciagow(aktualnaStacja, cel);
-                    if(sciezka.isEmpty()) {
+                    Wyciag[] sciezka = znajdzSciezkeWyciagow(aktualnaStacja, cel);
+                    if(sciezka.length == 0) {
                         Thread.sleep(100); // Pauza, jeśli nie znaleziono ścieżki
                         continue;
                     }
 
-                    // Korzystanie z każdego wyciągu po kolei
-                    for(Wyciag w : sciezka) {
-                        status = Status.WAITING; // Oczekiwanie na wyciąg
+                    // Korzystanie z każdego wyciągu po kolei (albo z równoległego, przy którym jest krótsza kolejka)
+                    boolean odrzucony = false;
+                    for(Wyciag zeSciezki : sciezka) {
+                        Wyciag w = wybierzWyciag(zeSciezki);
+                        if(!podejdzDoWyciagu(w, System.currentTimeMillis())) {
+                            odrzucony = true; // Pełna kolejka - dalsza część ścieżki przepada
+                            break;
+                        }
+                        ustawStatus(Status.WAITING, aktualnaStacja.indeks, System.currentTimeMillis()); // Oczekiwanie na wyciąg
                         wsiadzNaWyciag(w);
                         aktualnaStacja = w.trasa.stacjaGorna; // Aktualizacja pozycji
-                        status = Status.AT_STATION; // Aktualizacja pozycji - na jakiej stacji znajduje się narciarz?
+                        ustawStatus(Status.AT_STATION, aktualnaStacja.indeks, System.currentTimeMillis()); // Aktualizacja pozycji - na jakiej stacji znajduje się narciarz?
+                    }
+                    if(odrzucony) {
+                        Thread.sleep(przerwaPoOdrzuceniu()); // Potem inny cel ze stacji, na której stoi
+                        continue;
                     }
                 }
 
                 // Zjazd w dół, jeśli cel jest niżej niż aktualna stacja
-                else if(cel.getPoziom() < aktualnaStacja.getPoziom()) {
-                    status = Status.AT_STATION; // Chwilowa przerwa na stacji, żeby wyświetlił się podczas aktualizacji GUI, a nie od razu zjechał
+                else if(cel.getWysokosc() < aktualnaStacja.getWysokosc()) {
+                    ustawStatus(Status.AT_STATION, aktualnaStacja.indeks, System.currentTimeMillis()); // Chwilowa przerwa na stacji, żeby wyświetlił się podczas aktualizacji GUI, a nie od razu zjechał
                     Thread.sleep(20);
-                    aktualnaStacja.narciarzOdszedl(this); // Opuszczenie stacji
                     Trasa zjazd = znajdzTraseZjazdu(aktualnaStacja, cel); // Znajdowanie trasy zjazdu
-                    status = Status.SKIING;
-                    zjazd.narciarzStart(); // Rejestracja rozpoczęcia zjazdu
+                    ruszyl(System.currentTimeMillis());
+                    rozpocznijZjazd(zjazd, System.currentTimeMillis());
                     Thread.sleep(zjazd.duration * 1000L);
-                    zjazd.narciarzKoniec();
-                    aktualnaStacja = cel; // Aktualizacja pozycji
-                    aktualnaStacja.narciarzPrzybyl(this); // Rejestracja przybycia na nową stację
-                    status = Status.WAITING; // Czeka na kolejną aktywność
+                    zakonczZjazd(zjazd, cel, System.currentTimeMillis());
                 }
                 else {
-                    Thread.sleep(50); // Jeśli cel na tym samym poziomie - chwila przerwy
+                    Thread.sleep(50); // Jeśli cel na tej samej wysokości - chwila przerwy
                     continue;
                 }
 
@@ -446,7 +834,9 @@ class Narciarz extends Thread {
     }
 }
 
-class Wyciag extends Thread {
+// Wyciąg nie ma własnego wątku - jest maszyną stanów, którą wybudza wspólny harmonogram (lub silnik zdarzeniowy)
+// dokładnie wtedy, gdy ma coś do zrobienia: przybycie grupy, kolejne wsiadanie albo początek/koniec serwisu
+class Wyciag {
     String name;
     Trasa trasa;
     int capacity;
@@ -456,21 +846,39 @@ class Wyciag extends Thread {
     int maintenanceDuration;
     int globalBoardingInterval; // Czas co ile podjeżdża wyciąg jest ten sam dla całego stoku, różnią się jednak pojedmnością - capacity
 
-    private long startTime; // Czas rozpoczęcia działania wyciągu
+    private PlanistaWyciagow planista; // Źródło czasu i planowanie wybudzeń
+    TablicaTrasowania tablicaTrasowania; // Powiadamiana o zmianie dostępności wyciągu
+    PlanerSerwisow planerSerwisow; // Decyduje o początku serwisu (null - wyciąg poza symulacją, sam liczy termin)
+    int indeks; // Numer wyciągu w tablicy trasowania
+    private long startTime; // Czas rozpoczęcia działania wyciągu (reset po każdym serwisie)
+    private volatile long lastBoardTime; // Czas ostatniego wsiadania grupowego
+    private long koniecSerwisuCzas; // Czas zakończenia trwającego serwisu
+    private long poczatekNiedostepnosci; // Chwila, w której wyciąg przestał wpuszczać przed serwisem
+    final MetrykiWyciagu metryki = new MetrykiWyciagu(); // Czasy oczekiwania, wypełnienie, straty przez serwis
+    PublikatorMigawek migawki; // Zgłaszanie przejść stacja <-> wyciąg (null - wyciąg poza symulacją, np. w benchmarku)
+    SladZdarzen slad; // Ślad zdarzeń (null - bez zapisu)
+    private volatile boolean czekaNaKolejke = false; // Kolejka była pusta - wyciąg nie budzi się na kolejne wsiadania
+    long zaplanowanyNa = Long.MAX_VALUE; // Czas zaplanowanego wybudzenia (pilnowany przez planistę, pod monitorem wyciągu)
     private AtomicBoolean inMaintenance = new AtomicBoolean(false); // Flaga, która oznacza trwający serwis
     private volatile boolean maintenancePending = false; // Flaga, która oznacza planowany serwis
 
-    // Lock dla synchronizacji serwisu
-    final Object maintenanceLock = new Object();
-    // Lock dla synchronizacji opróżniania wyciągu
-    private final Object emptyLiftLock = new Object();
-
-
-    // Kolejka oczekujących narciarzy
-    BlockingQueue<Narciarz> kolejkaOczekujacych = new LinkedBlockingQueue<>();
-    // Mapa narciarzy aktualnie na wyciągu i czasu ich przybycia na górną stację
-    private ConcurrentHashMap<Narciarz, Long> narciarzeDoCzasuPrzybycia = new ConcurrentHashMap<>();
-    private AtomicInteger naWyciagu = new AtomicInteger(0); // Licznik narciarzy na wyciągu
+    // Najwięcej narciarzy w kolejce i na bramce (0 - bez limitu) - przy pełnej kolejce narciarz rezygnuje
+    int maxKolejka;
+    // Bramka zamknięta od oczekiwania na serwis do jego końca - narciarze czekają na niej bez budzenia po serwisie
+    final BramkaWyciagu bramka = new BramkaWyciagu();
+
+    // Kolejka oczekujących narciarzy (jeden pas, albo pasy wsiadania z konfiguracji - ustawPasy)
+    KolejkaWsiadania kolejkaOczekujacych = new KolejkaWsiadania();
+    // Pasy wybranych na krzesełko - bufor wielokrotnego użytku, używany tylko pod monitorem wyciągu
+    private final byte[] pasyWybranych;
+    // Krzesełka jadące w górę (stały pierścień, od najbliższego górnej stacji) - zmienia je tylko wyciąg pod swoim
+    // monitorem (lub odtwarzacz śladu), a GUI czyta zajętość i położenie bez blokowania wyciągu
+    final PierscienKrzeselek krzeselka;
+    // Licznik narciarzy na wyciągu - zostaje AtomicInteger: zmienia go tylko krok() pod monitorem wyciągu (jeden
+    // piszący naraz, brak rywalizacji), a wsiadanie potrzebuje dokładnej wartości przy sprawdzaniu capacity
+    private AtomicInteger naWyciagu = new AtomicInteger(0);
+    private AtomicLong przejazdy = new AtomicLong(0); // Licznik zakończonych przejazdów (statystyka)
+    private AtomicInteger liczbaSerwisow = new AtomicInteger(0); // Licznik przeprowadzonych serwisów
 
     // Konstruktor wyciągu
     public Wyciag(String name, Trasa trasa, int capacity, int interval, int boardingGroupSize,
@@ -483,8 +891,47 @@ class Wyciag extends Thread {
         this.maintenanceTime = maintenanceTime;
         this.maintenanceDuration = maintenanceDuration;
         this.globalBoardingInterval = globalBoardingInterval;
+        this.krzeselka = new PierscienKrzeselek(capacity, interval, boardingGroupSize, globalBoardingInterval);
+        this.pasyWybranych = new byte[boardingGroupSize];
+        metryki.ustawMiejsca(boardingGroupSize);
+    }
+
+    // Pasy wsiadania z konfiguracji - w zwykłym pasie grupy wsiadają razem, a metryki są liczone osobno dla każdego pasa
+    void ustawPasy(PasWsiadania[] pasy) {
+        kolejkaOczekujacych = new KolejkaWsiadania(pasy, true);
+        metryki.ustawPasy(pasy.length);
+    }
 
-        this.startTime = System.currentTimeMillis(); // Inicjalizacja czasu startu
+    // Uruchomienie wyciągu - od tej chwili liczy się czas do serwisu i harmonogram wsiadania
+    public synchronized void start(PlanistaWyciagow planista) {
+        this.planista = planista;
+        this.startTime = planista.teraz(); // Inicjalizacja czasu startu
+        this.lastBoardTime = startTime;
+        this.czekaNaKolejke = true; // Pierwsze wsiadanie zaplanuje dopiero pierwszy narciarz w kolejce
+        metryki.start(startTime);
+        if(planerSerwisow != null) planerSerwisow.start(this, startTime);
+        planista.zaplanuj(this, nastepneSprawdzenieSerwisu(startTime));
+    }
+
+    // Narciarz staje w kolejce - jeśli wyciąg nie budzi się na wsiadania (pusta kolejka), planujemy najbliższe
+    void dolaczDoKolejki(Narciarz nar) {
+        nar.czasDolaczenia = planista.teraz(); // Do pomiaru czasu oczekiwania w kolejce
+        PasWsiadania pas = kolejkaOczekujacych.pasDla(nar);
+        if(slad != null) slad.zapisz(SladZdarzen.KOLEJKA, nar.czasDolaczenia, indeks, nar.id, pas.ordinal()); // Przed wstawieniem - ślad zachowuje kolejność
+        kolejkaOczekujacych.dodaj(nar, pas);
+        metryki.zapiszKolejke(kolejkaOczekujacych.size());
+        if(czekaNaKolejke) {
+            czekaNaKolejke = false;
+            planista.zaplanuj(this, nastepneWsiadanie(planista.teraz()));
+        }
+    }
+
+    // Najbliższa chwila wsiadania - jednostki podjeżdżają co globalBoardingInterval od ostatniego wsiadania
+    private long nastepneWsiadanie(long now) {
+        long okres = globalBoardingInterval * 1000L;
+        long ostatnie = lastBoardTime;
+        long ile = Math.max(1, (now - ostatnie + okres - 1) / okres);
+        return ostatnie + ile * okres;
     }
 
     // Sprawdzenie, czy wyciąg jest w stanie oczekiwania na serwis
@@ -501,96 +948,331 @@ class Wyciag extends Thread {
         return inMaintenance.get() ? WyciagStatus.MAINTENANCE : WyciagStatus.RUNNING;
     }
 
-    // Metoda obsługująca wysiadających narciarzy (gdy dotrą do górnej stacji)
-    private void obsluzWysiadajacych() {
-        long now = System.currentTimeMillis();
-        for(Map.Entry<Narciarz, Long> e :narciarzeDoCzasuPrzybycia.entrySet()) {
-            // Sprawdzenie czy nadszedł czas przybycia
-            if(now >= e.getValue()) {
-                Narciarz nar = e.getKey();
+    public long getPrzejazdy() {
+        return przejazdy.get();
+    }
+
+    public int getLiczbaSerwisow() {
+        return liczbaSerwisow.get();
+    }
+
+    public double getPrzejazdyNaMinute() {
+        return planista == null ? 0.0 : metryki.naMinute(przejazdy.get(), planista.teraz());
+    }
+
+    // Przepustowość jednego pasa wsiadania (wsiadających na minutę) - gdy wyciąg ma kilka pasów
+    public double getWsiadaniaNaMinute(int pas) {
+        return planista == null ? 0.0 : metryki.naMinute(metryki.getWsiadloPasem(pas), planista.teraz());
+    }
+
+    // Termin serwisu bez planowania - maintenanceTime od startu wyciągu lub końca poprzedniego serwisu
+    long terminSerwisu() {
+        return startTime + maintenanceTime * 1000L;
+    }
+
+    private boolean czasNaSerwis(long now) {
+        return planerSerwisow == null ? now >= terminSerwisu() : planerSerwisow.zwolnij(this, now);
+    }
+
+    private long nastepneSprawdzenieSerwisu(long now) {
+        return planerSerwisow == null ? terminSerwisu() : planerSerwisow.nastepneSprawdzenie(this, now);
+    }
+
+    // Czy w kolejce jest miejsce - liczą się też czekający na bramce. W trybie wątkowym limit może sprawdzić naraz
+    // kilku narciarzy, więc kolejka przekracza go najwyżej o liczbę jednocześnie podchodzących
+    boolean przyjmie() {
+        return maxKolejka <= 0 || kolejkaOczekujacych.size() + bramka.liczbaCzekajacych() < maxKolejka;
+    }
+
+    void odrzuc(Narciarz nar, long now) {
+        metryki.zapiszOdrzucenie();
+        if(slad != null) slad.zapisz(SladZdarzen.ODRZUCENIE, now, indeks, nar.id, 0);
+    }
+
+    void przekierowano(Narciarz nar, long now) {
+        metryki.zapiszPrzekierowanie();
+        if(slad != null) slad.zapisz(SladZdarzen.PRZEKIEROWANIE, now, indeks, nar.id, 0);
+    }
+
+    // Wyciąg może przyjmować narciarzy (nie jest w serwisie ani przed serwisem)
+    public boolean jestDostepny() {
+        return !inMaintenance.get() && !maintenancePending;
+    }
+
+    // Przewidywany czas od stanięcia w kolejce do dojazdu na górę (ms) - waga wyciągu w trasowaniu "kolejki".
+    // Kolejka ubywa w tempie jednostek (boardingGroupSize co globalBoardingInterval), ale nie szybciej, niż pozwala
+    // capacity rozłożone na czas wjazdu; size() kolejki to odczyt licznika, bez przeglądania
+    long przewidywanyCzasMs() {
+        double naSekunde = Math.min((double) boardingGroupSize / globalBoardingInterval, (double) capacity / interval);
+        return Math.round((kolejkaOczekujacych.size() + 1) / naSekunde * 1000) + interval * 1000L;
+    }
+
+    // Przejścia stanu serwisu - wspólne dla wątku wyciągu i silnika zdarzeniowego
+    void oznaczOczekiwanieNaSerwis() {
+        maintenancePending = true;
+        bramka.zamknij();
+        if(tablicaTrasowania != null) tablicaTrasowania.wyciagZmienilStan(this);
+    }
+
+    void rozpocznijSerwis() {
+        inMaintenance.set(true);
+        liczbaSerwisow.incrementAndGet();
+    }
+
+    void zakonczSerwis() {
+        inMaintenance.set(false);
+        maintenancePending = false;
+        if(tablicaTrasowania != null) tablicaTrasowania.wyciagZmienilStan(this);
+    }
+
+    // Otwarcie bramki po serwisie - czekający stają w kolejce w kolejności przyjścia, bez budzenia ich wątków
+    void otworzBramke() {
+        bramka.otworz(this::dolaczDoKolejki);
+    }
+
+    // Czas przybycia najbliższego krzesełka na górę (Long.MAX_VALUE gdy wyciąg jest pusty)
+    long najblizszePrzybycie() {
+        return krzeselka.najblizszePrzybycie();
+    }
+
+    // Metoda obsługująca wysiadających narciarzy (gdy dotrą do górnej stacji), now - aktualny czas (rzeczywisty lub wirtualny)
+    // Rozładowuje tylko krzesełka, które już dojechały - nie przegląda jadących dalej
+    void obsluzWysiadajacych(long now, Consumer<Narciarz> poPrzybyciu) {
+        while(krzeselka.najblizszePrzybycie() <= now) {
+            Narciarz[] siedzenia = krzeselka.siedzeniaPierwszej();
+            int zajete = krzeselka.zajetePierwszej();
+            if(migawki != null) migawki.poczatekPrzejscia(); // Całe krzesełko przechodzi z wyciągu na stację naraz
+            for(int i = 0; i < zajete; i++) {
+                Narciarz nar = siedzenia[i];
                 trasa.stacjaGorna.narciarzPrzybyl(nar); // Rejestracja przybycia na górną stację
-                int currentCount = naWyciagu.decrementAndGet(); // Zmniejszenie licznika narciarzy na wyciągu
-                nar.powiadomDojechal();
-                nar.status = Status.AT_STATION; // Zmiana statusu narciarza
-                narciarzeDoCzasuPrzybycia.remove(nar); // Usunięcie z mapy osbługiwanych
-
-                // Powiadomienie o opróżnieniu wyciągu
-                if(currentCount == 0) {
-                    synchronized(emptyLiftLock) {
-                        emptyLiftLock.notify();
-                    }
-                }
+                naWyciagu.decrementAndGet(); // Zmniejszenie licznika narciarzy na wyciągu
+                przejazdy.incrementAndGet();
+                nar.ustawStatus(Status.AT_STATION, trasa.stacjaGorna.indeks, now); // Zmiana statusu narciarza
             }
+            if(migawki != null) migawki.koniecPrzejscia();
+            for(int i = 0; i < zajete; i++) {
+                poPrzybyciu.accept(siedzenia[i]); // Powiadomienie narciarza (wątek) lub silnika zdarzeniowego
+            }
+            krzeselka.wysiadka(); // Po powiadomieniach - siedzenia są wolne dopiero teraz
         }
     }
 
-    public void run() {
-        try {
-            long lastBoardTime = System.currentTimeMillis(); // Czas ostatniego wsiadania grupowego
-            while(true) {
-                // Sprawdzaj czy nadszedł czas na serwis
-                long elapsed = (System.currentTimeMillis() - startTime) / 1000; // Czas który upłynął od startu
-                if(elapsed >= maintenanceTime) {
-                    maintenancePending = true; // Oznaczenie, że serwis jest planowany w najbliższym czasie
-
-                    // Pasywne czekanie aż wyciąg będzie pusty
-                    synchronized(emptyLiftLock) {
-                        while(naWyciagu.get() > 0) {
-                            obsluzWysiadajacych();
-                            if(naWyciagu.get() > 0) {
-                                emptyLiftLock.wait(100); // Czeka max 100ms lub do powiadomienia
-                            }
-                        }
-                    }
+    // Wpuszczenie na wyciąg max boardingGroupSize narciarzy z kolejki (wybór miejsc - KolejkaWsiadania.wybierz),
+    // zwraca liczbę wsiadających
+    int wpuscGrupe(long now) {
+        int wolne = Math.min(boardingGroupSize, capacity - naWyciagu.get()); // Limit grupy i pojemności wyciągu
+        if(wolne <= 0 || krzeselka.pelny()) return 0; // Brak miejsca albo wolnego krzesełka na dolnej stacji
+        Narciarz[] siedzenia = krzeselka.wolna(); // Wsiadający zajmują siedzenia krzesełka wprost z kolejki
+        int boarded = kolejkaOczekujacych.wybierz(wolne, siedzenia, pasyWybranych);
+        if(boarded == 0) return 0; // Kolejka jest pusta
+
+        if(migawki != null) migawki.poczatekPrzejscia(); // Wsiadanie całej grupy to jedno przejście stacja -> wyciąg
+        for(int i = 0; i < boarded; i++) {
+            Narciarz next = siedzenia[i];
+            // Obsługa wsiadania
+            trasa.stacjaDolna.narciarzOdszedl(next); // Narciarz opuszcza stację dolną
+            naWyciagu.incrementAndGet(); // Więcej narciarzy na wyciągu (licznik)
+            next.ustawStatus(Status.ON_LIFT, indeks, now); // Zmiana statusu narciarza
+            metryki.zapiszOczekiwanie(now - next.czasDolaczenia, pasyWybranych[i]);
+        }
+        if(migawki != null) migawki.koniecPrzejscia();
+        if(slad != null) slad.zapisz(SladZdarzen.ODJAZD, now, indeks, 0, boarded);
+        metryki.zapiszOdjazd(boarded, boardingGroupSize);
+        // Całe krzesełko dojedzie do górnej stacji po czasie interval
+        krzeselka.odjazd(boarded, now + interval * 1000L);
+        return boarded;
+    }
 
-                    // Przeprowadzenie serwisu
-                    synchronized(maintenanceLock) {
-                        inMaintenance.set(true); // Ustawienie statusu na serwis
-                        System.out.println("Wyciąg " + name + " serwis przez " + maintenanceDuration + " sek.");
-                        Thread.sleep(maintenanceDuration * 1000L); // Symulacja czasu trwania serwisu
-                        inMaintenance.set(false); // Wyłączenie statusu serwisu
-                        maintenancePending = false; // Wyłączenie flagi oczekiwania na serwis
-                        startTime = System.currentTimeMillis(); // Reset czasu startu serwisu
-                        lastBoardTime = System.currentTimeMillis(); // Reset czasu ostatniego wsiadania przed serwisem
-                        System.out.println("Wyciąg " + name + " koniec serwisu.");
-
-                        // Powiadomienie wszystkich czekających narciarzy
-                        maintenanceLock.notifyAll();
-                    }
-                }
-                else {
-                    obsluzWysiadajacych();
-
-                    // Co czas ustalony w globalBoardingInterval wpuszczamy max boardingGroupSize narciarzy
-                    long now = System.currentTimeMillis();
-                    // Sprawdzenie czy minął czas od ostatniego wsiadania i czy nie jest planowany serwis niedługo
-                    if (!maintenancePending && now - lastBoardTime >= globalBoardingInterval * 1000L) {
-                        int boarded = 0; // Licznik wsiadających w tej grupie
-                        // Pętla wsiadania - dopóki nie osiągniemy limitu grupy lub pojemności danego wyciągu
-                        while(boarded < boardingGroupSize && naWyciagu.get() < capacity) {
-                            Narciarz next = kolejkaOczekujacych.poll(); // Pobranie następnego narciarza z kolejki
-                            if(next == null) break; // Przerwanie jeśli kolejka jest już pusta
-
-                            // Obsługa wsiadania
-                            trasa.stacjaDolna.narciarzOdszedl(next); // Narciarz opuszcza stację dolną
-                            naWyciagu.incrementAndGet(); // Więcej narciarzy na wyciągu (licznik)
-                            next.status = Status.ON_LIFT; // Zmiana statusu narciarza
-
-                            // Obliczenie czasu przybycia narciarza do górnej stacji
-                            long arrivalTime = now + interval * 1000L;
-                            narciarzeDoCzasuPrzybycia.put(next, arrivalTime); // Dodanie do mapy narciarza jadącego w górę
-                            boarded++;
-                        }
-                        lastBoardTime = now; // Aktualizacja czasu ostatniego wsiadania
-                    }
-                    synchronized(this) {
-                        this.wait(10);
-                    }
-                }
+    // Jeden krok wyciągu: obsługa przybyć, przejścia serwisu i wsiadanie, na koniec planowanie następnego wybudzenia
+    synchronized void krok() {
+        long now = planista.teraz();
+        obsluzWysiadajacych(now, nar -> planista.dojechal(nar, this));
+        if(planerSerwisow != null) planerSerwisow.probka(this, now);
+
+        if(inMaintenance.get()) {
+            if(now < koniecSerwisuCzas) {
+                planista.zaplanuj(this, koniecSerwisuCzas);
+                return;
             }
-        } catch (InterruptedException e) {
+            zakonczSerwis(); // Wyłączenie statusu serwisu i flagi oczekiwania na serwis
+            if(planerSerwisow != null) planerSerwisow.wlaczony(this, now);
+            // Każda jednostka, która w tym czasie mogłaby odjechać, to boardingGroupSize utraconych miejsc
+            long niedostepny = now - poczatekNiedostepnosci;
+            long utracone = niedostepny / (globalBoardingInterval * 1000L) * boardingGroupSize;
+            metryki.zapiszSerwis(niedostepny, utracone);
+            if(slad != null) slad.zapisz(SladZdarzen.SERWIS_KONIEC, now, indeks, 0, (utracone << 32) | niedostepny);
+            startTime = now; // Reset czasu startu serwisu
+            lastBoardTime = now; // Reset czasu ostatniego wsiadania przed serwisem
+            planista.serwisZakonczony(this);
+            otworzBramke(); // Czekający na serwis trafiają do kolejki
+        }
 
+        // Sprawdzaj czy nadszedł czas na serwis
+        if(!maintenancePending && czasNaSerwis(now)) {
+            oznaczOczekiwanieNaSerwis(); // Oznaczenie, że serwis jest planowany w najbliższym czasie
+            poczatekNiedostepnosci = now;
+            if(slad != null) slad.zapisz(SladZdarzen.SERWIS_OCZEKUJE, now, indeks, 0, 0);
+        }
+        if(maintenancePending) {
+            if(naWyciagu.get() > 0) {
+                // Czekanie aż wyciąg będzie pusty - wybudzenie przy przybyciu kolejnej grupy
+                planista.zaplanuj(this, najblizszePrzybycie());
+                return;
+            }
+            // Przeprowadzenie serwisu - bez usypiania, koniec serwisu to kolejne wybudzenie
+            rozpocznijSerwis(); // Ustawienie statusu na serwis
+            koniecSerwisuCzas = now + maintenanceDuration * 1000L;
+            if(slad != null) slad.zapisz(SladZdarzen.SERWIS_START, now, indeks, 0, maintenanceDuration);
+            planista.serwisRozpoczety(this);
+            planista.zaplanuj(this, koniecSerwisuCzas);
+            return;
         }
+
+        // Co czas ustalony w globalBoardingInterval wpuszczamy max boardingGroupSize narciarzy
+        if(now - lastBoardTime >= globalBoardingInterval * 1000L) {
+            wpuscGrupe(now);
+            lastBoardTime = now; // Aktualizacja czasu ostatniego wsiadania
+        }
+
+        // Następne wybudzenie: przybycie grupy, termin serwisu i - jeśli ktoś czeka - kolejne wsiadanie
+        long nastepne = Math.min(nastepneSprawdzenieSerwisu(now), najblizszePrzybycie());
+        czekaNaKolejke = true;
+        if(!kolejkaOczekujacych.isEmpty()) { // Ponowne sprawdzenie po ustawieniu flagi, żeby nie zgubić narciarza
+            czekaNaKolejke = false;
+            nastepne = Math.min(nastepne, nastepneWsiadanie(now));
+        }
+        planista.zaplanuj(this, nastepne);
+    }
+
+    // Stan do punktu kontrolnego: timery serwisu i wsiadania, kolejka (w kolejności), jadące grupy, liczniki i metryki.
+    // Narciarze są zapisywani jako id (numeracja od 1)
+    void zapiszStan(DataOutput out) throws IOException {
+        out.writeLong(startTime);
+        out.writeLong(lastBoardTime);
+        out.writeLong(koniecSerwisuCzas);
+        out.writeLong(poczatekNiedostepnosci);
+        out.writeLong(zaplanowanyNa);
+        out.writeBoolean(czekaNaKolejke);
+        out.writeBoolean(inMaintenance.get());
+        out.writeBoolean(maintenancePending);
+        out.writeInt(naWyciagu.get());
+        out.writeLong(przejazdy.get());
+        out.writeInt(liczbaSerwisow.get());
+        out.writeByte(kolejkaOczekujacych.pasy.length);
+        for(int i = 0; i < kolejkaOczekujacych.pasy.length; i++) {
+            out.writeInt(kolejkaOczekujacych.kolejka(i).size());
+            for(Narciarz nar : kolejkaOczekujacych.kolejka(i)) {
+                out.writeInt(nar.id);
+            }
+        }
+        out.writeInt(krzeselka.size());
+        for(int k = 0; k < krzeselka.size(); k++) {
+            out.writeLong(krzeselka.przybycie(k));
+            out.writeShort(krzeselka.zajete(k));
+            Narciarz[] siedzenia = krzeselka.siedzenia(k);
+            for(int i = 0; i < krzeselka.zajete(k); i++) {
+                out.writeInt(siedzenia[i].id);
+            }
+        }
+        metryki.zapiszStan(out);
+    }
+
+    // Przywrócenie stanu zamiast start() - wyciąg pracuje dalej z zapisanymi timerami
+    synchronized void wczytajStan(DataInput in, List<Narciarz> narciarze, PlanistaWyciagow planista) throws IOException {
+        this.planista = planista;
+        startTime = in.readLong();
+        lastBoardTime = in.readLong();
+        koniecSerwisuCzas = in.readLong();
+        poczatekNiedostepnosci = in.readLong();
+        zaplanowanyNa = in.readLong();
+        czekaNaKolejke = in.readBoolean();
+        inMaintenance.set(in.readBoolean());
+        maintenancePending = in.readBoolean();
+        naWyciagu.set(in.readInt());
+        przejazdy.set(in.readLong());
+        liczbaSerwisow.set(in.readInt());
+        kolejkaOczekujacych.clear();
+        if(in.readUnsignedByte() != kolejkaOczekujacych.pasy.length) {
+            throw new IOException("Punkt kontrolny nie pasuje do konfiguracji: inne pasy wsiadania wyciągu " + name);
+        }
+        for(int i = 0; i < kolejkaOczekujacych.pasy.length; i++) {
+            int wKolejce = in.readInt();
+            for(int j = 0; j < wKolejce; j++) {
+                kolejkaOczekujacych.kolejka(i).add(narciarze.get(in.readInt() - 1));
+            }
+        }
+        krzeselka.clear();
+        int jadace = in.readInt();
+        for(int k = 0; k < jadace; k++) {
+            long czasPrzybycia = in.readLong();
+            int zajete = in.readUnsignedShort();
+            if(krzeselka.pelny() || zajete > boardingGroupSize) {
+                throw new IOException("Punkt kontrolny nie pasuje do konfiguracji: inne krzesełka wyciągu " + name);
+            }
+            Narciarz[] siedzenia = krzeselka.wolna();
+            for(int i = 0; i < zajete; i++) {
+                siedzenia[i] = narciarze.get(in.readInt() - 1);
+            }
+            krzeselka.odjazd(zajete, czasPrzybycia);
+        }
+        metryki.wczytajStan(in);
+        if(!jestDostepny() && tablicaTrasowania != null) tablicaTrasowania.wyciagZmienilStan(this);
     }
 
+    // Odtwarzanie śladu zdarzeń (OdtwarzaczSladu) - te same zmiany liczników i metryk co w krok(), ale w kolejności
+    // i z czasami zapisanymi w śladzie, bez decyzji wyciągu. Wywoływane z jednego wątku odtwarzacza.
+
+    void odtworzDolaczenie(Narciarz nar, long now, PasWsiadania pas) {
+        nar.czasDolaczenia = now;
+        kolejkaOczekujacych.dodaj(nar, kolejkaOczekujacych.indeks(pas) >= 0 ? pas : kolejkaOczekujacych.pasDla(nar));
+        metryki.zapiszKolejke(kolejkaOczekujacych.size());
+    }
+
+    void odtworzWsiadanie(Narciarz nar, long now) {
+        int pas = Math.max(0, kolejkaOczekujacych.usun(nar));
+        if(migawki != null) migawki.poczatekPrzejscia();
+        trasa.stacjaDolna.narciarzOdszedl(nar);
+        naWyciagu.incrementAndGet();
+        if(migawki != null) migawki.koniecPrzejscia();
+        nar.status = Status.ON_LIFT;
+        metryki.zapiszOczekiwanie(now - nar.czasDolaczenia, pas);
+    }
+
+    void odtworzOdjazd(long now, Narciarz[] grupa) {
+        lastBoardTime = now;
+        if(krzeselka.pelny() || grupa.length > boardingGroupSize) {
+            throw new IllegalStateException("Ślad nie pasuje do konfiguracji: brak krzesełka dla odjazdu wyciągu " + name);
+        }
+        metryki.zapiszOdjazd(grupa.length, boardingGroupSize);
+        System.arraycopy(grupa, 0, krzeselka.wolna(), 0, grupa.length);
+        krzeselka.odjazd(grupa.length, now + interval * 1000L);
+    }
+
+    void odtworzWysiadanie(Narciarz nar) {
+        if(migawki != null) migawki.poczatekPrzejscia();
+        trasa.stacjaGorna.narciarzPrzybyl(nar);
+        naWyciagu.decrementAndGet();
+        przejazdy.incrementAndGet();
+        if(migawki != null) migawki.koniecPrzejscia();
+        nar.status = Status.AT_STATION;
+        // Krzesełko wraca na dół, gdy wysiądzie z niego ostatni narciarz
+        if(!krzeselka.isEmpty() && krzeselka.siedzeniaPierwszej()[krzeselka.zajetePierwszej() - 1] == nar) {
+            krzeselka.wysiadka();
+        }
+    }
+
+    void odtworzOczekiwanieNaSerwis(long now) {
+        oznaczOczekiwanieNaSerwis();
+        if(planerSerwisow != null) planerSerwisow.wylaczony(this, now);
+        poczatekNiedostepnosci = now;
+    }
+
+    void odtworzSerwis(long now, long niedostepnyMs, long utracone) {
+        zakonczSerwis();
+        otworzBramke(); // Przy odtwarzaniu nikt nie czeka na bramce - dołączenia do kolejki są w śladzie
+        if(planerSerwisow != null) planerSerwisow.wlaczony(this, now);
+        metryki.zapiszSerwis(niedostepnyMs, utracone);
+        startTime = now;
+        lastBoardTime = now;
+    }
 }
@@ -0,0 +1,182 @@
+package org.code;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Binarny ślad zdarzeń symulacji (tylko dopisywanie). Wątki symulacji wpisują zdarzenie do bufora cyklicznego
+// (rezerwacja miejsca jednym getAndIncrement, bez locków i bez alokacji), a osobny wątek przepisuje bufor do pliku
+// przez FileChannel - zapis na dysk nie dzieje się na ścieżce narciarza ani wyciągu.
+//
+// Format pliku: nagłówek (MAGIA, WERSJA, długość i treść konfiguracji JSON), potem rekordy po 24 bajty:
+//   long czas (ms, rzeczywisty lub wirtualny), long typ(8 bitów) | obiekt(24 bity) | narciarz(32 bity), long dodatkowe
+// Obiekt to indeks stacji / wyciągu / trasy w listach symulacji - zależnie od typu zdarzenia i statusu.
+class SladZdarzen {
+    static final long MAGIA = 0x534B495452414345L; // "SKITRACE"
+    static final int WERSJA = 2; // 2 - odrzucenia i przekierowania przy pełnej kolejce (ślady w wersji 1 też czytamy)
+    static final int ROZMIAR_REKORDU = 24;
+
+    // Typy zdarzeń
+    static final int START = 0; // Start wyciągów (czas początku symulacji)
+    static final int STATUS = 1; // Zmiana statusu narciarza, dodatkowe = Status.ordinal(), obiekt zależy od statusu:
+                                 // WAITING / AT_STATION - stacja, ON_LIFT - wyciąg, SKIING - trasa
+    static final int KOLEJKA = 2; // Narciarz staje w kolejce do wyciągu (obiekt), dodatkowe = numer pasa (PasWsiadania)
+    static final int ODJAZD = 3; // Jednostka odjeżdża z grupą, dodatkowe = liczba wsiadających
+    static final int SERWIS_OCZEKUJE = 4; // Wyciąg przestaje wpuszczać przed serwisem
+    static final int SERWIS_START = 5;
+    static final int SERWIS_KONIEC = 6; // dodatkowe = utracone miejsca (starsze 32 bity) | czas niedostępności ms
+    static final int TRASA = 7; // Nowa trasa (obiekt = indeks), dodatkowe = stacja1 (16) | stacja2 (16) | czas zjazdu (32)
+    static final int KONIEC = 8; // Koniec symulacji
+    static final int ODRZUCENIE = 9; // Narciarz (id) zrezygnował z pełnej kolejki wyciągu (obiekt)
+    static final int PRZEKIEROWANIE = 10; // Narciarz po rezygnacji z wyciągu (obiekt) ruszył inną drogą
+
+    // Zakresy pól rekordu: obiekt ma 24 bity, stacje w rekordzie TRASA po 16 bitów
+    static final int MAX_OBIEKTOW = 1 << 24;
+    static final int MAX_STACJI = 1 << 16;
+
+    private static final int POJEMNOSC = 1 << 16; // Zdarzeń w buforze cyklicznym (potęga dwójki)
+    private static final int MASKA = POJEMNOSC - 1;
+
+    private final long[] dane = new long[POJEMNOSC * 3];
+    private final AtomicLongArray opublikowane = new AtomicLongArray(POJEMNOSC); // numer zdarzenia + 1 zapisany w slocie
+    private final AtomicLong nastepne = new AtomicLong(); // Następny wolny numer zdarzenia
+    private volatile long odczytane = 0; // Zdarzenia już przepisane do bufora pliku (zmienia tylko pisarz)
+    private volatile boolean zamykanie = false;
+
+    private final FileChannel kanal;
+    private final ByteBuffer bufor = ByteBuffer.allocateDirect(1 << 20);
+    private final Thread pisarz;
+    private final Thread przyZamknieciu;
+    private volatile IOException blad; // Błąd zapisu z wątku pisarza - ślad jest wtedy wyłączany
+
+    // Model musi mieścić się w polach rekordu - inaczej ślad odtworzyłby się po cichu błędnie
+    static void sprawdzRozmiar(String plik, int stacji, int wyciagow, int tras) {
+        String zrodlo = "ślad " + plik;
+        if (stacji > MAX_STACJI) {
+            throw new BladKonfiguracji(zrodlo, "$.stacje", "ślad zdarzeń mieści najwyżej " + MAX_STACJI + " stacji: " + stacji);
+        }
+        if (wyciagow > MAX_OBIEKTOW) {
+            throw new BladKonfiguracji(zrodlo, "$.wyciagi", "ślad zdarzeń mieści najwyżej " + MAX_OBIEKTOW + " wyciągów: " + wyciagow);
+        }
+        if (tras > MAX_OBIEKTOW) {
+            throw new BladKonfiguracji(zrodlo, "$.trasy", "ślad zdarzeń mieści najwyżej " + MAX_OBIEKTOW + " tras: " + tras);
+        }
+    }
+
+    public SladZdarzen(Path plik, SkiResortSimulation.Config cfg) throws IOException {
+        kanal = FileChannel.open(plik, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        byte[] konfiguracja = new Gson().toJson(cfg).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer naglowek = ByteBuffer.allocate(16 + konfiguracja.length);
+        naglowek.putLong(MAGIA).putInt(WERSJA).putInt(konfiguracja.length).put(konfiguracja).flip();
+        while (naglowek.hasRemaining()) {
+            kanal.write(naglowek);
+        }
+
+        pisarz = new Thread(this::przepisuj, "slad-zdarzen");
+        pisarz.setDaemon(true);
+        pisarz.start();
+        // Tryb wątkowy z TUI nie kończy się sam - dopisanie reszty bufora przy wyjściu z programu
+        przyZamknieciu = new Thread(this::zamknij, "slad-zdarzen-zamkniecie");
+        Runtime.getRuntime().addShutdownHook(przyZamknieciu);
+    }
+
+    // Wpisanie zdarzenia do bufora - wołane z wątków narciarzy, wyciągów i silnika zdarzeniowego
+    void zapisz(int typ, long czas, int obiekt, int narciarz, long dodatkowe) {
+        if (zamykanie) return;
+        long n = nastepne.getAndIncrement();
+        while (n - odczytane >= POJEMNOSC) {
+            if (blad != null) return; // Pisarz nie żyje - nikt nie opróżni bufora, ślad jest już wyłączony
+            LockSupport.parkNanos(10_000); // Bufor pełny - czekamy, aż pisarz go opróżni (nie gubimy zdarzeń)
+        }
+        int slot = (int) (n & MASKA);
+        dane[slot * 3] = czas;
+        dane[slot * 3 + 1] = ((long) typ << 56) | ((long) (obiekt & 0xFFFFFF) << 32) | (narciarz & 0xFFFFFFFFL);
+        dane[slot * 3 + 2] = dodatkowe;
+        opublikowane.set(slot, n + 1); // Zapis volatile publikuje dane slotu pisarzowi
+    }
+
+    void status(long czas, Narciarz nar, Status status, int obiekt) {
+        zapisz(STATUS, czas, obiekt, nar.id, status.ordinal());
+    }
+
+    // Wątek pisarza - przepisuje kolejne opublikowane zdarzenia do bufora i dalej do pliku
+    private void przepisuj() {
+        try {
+            while (true) {
+                long n = odczytane;
+                int slot = (int) (n & MASKA);
+                if (opublikowane.get(slot) == n + 1) {
+                    if (bufor.remaining() < ROZMIAR_REKORDU) {
+                        oproznij();
+                    }
+                    bufor.putLong(dane[slot * 3]).putLong(dane[slot * 3 + 1]).putLong(dane[slot * 3 + 2]);
+                    odczytane = n + 1;
+                } else if (zamykanie && n == nastepne.get()) {
+                    break; // Wszystko przepisane
+                } else if (blad != null) {
+                    break; // Ślad wyłączony - zarezerwowane sloty mogą nigdy nie zostać opublikowane
+                } else {
+                    oproznij(); // Chwila bez zdarzeń - zapis tego, co już jest, i krótka pauza
+                    LockSupport.parkNanos(1_000_000);
+                }
+            }
+            oproznij();
+        } catch (IOException e) {
+            wylacz(e);
+        }
+    }
+
+    // Ślad nie może być dalej zapisywany (błąd zapisu, trasa poza zakresem rekordu): symulacja biegnie dalej bez
+    // śladu, czekający na miejsce w buforze wracają od razu, a zamknij() zgłasza błąd na koniec
+    void wylacz(IOException e) {
+        if (blad != null) return;
+        blad = e;
+        zamykanie = true;
+        System.err.println("Ślad zdarzeń wyłączony: " + e.getMessage());
+    }
+
+    private void oproznij() throws IOException {
+        bufor.flip();
+        while (bufor.hasRemaining()) {
+            kanal.write(bufor);
+        }
+        bufor.clear();
+    }
+
+    // Zdarzenie KONIEC i zamknięcie pliku (po zakończeniu symulacji)
+    void zakoncz(long czas) {
+        zapisz(KONIEC, czas, 0, 0, 0);
+        zamknij();
+        try {
+            Runtime.getRuntime().removeShutdownHook(przyZamknieciu);
+        } catch (IllegalStateException e) {
+            // JVM już się zamyka - hak i tak zostanie wykonany
+        }
+    }
+
+    private synchronized void zamknij() {
+        if (!kanal.isOpen()) return;
+        zamykanie = true;
+        try {
+            pisarz.join();
+            kanal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            blad = e;
+        }
+        if (blad != null) {
+            throw new UncheckedIOException("Błąd zapisu śladu zdarzeń", blad);
+        }
+    }
+}
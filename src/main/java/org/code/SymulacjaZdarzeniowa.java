@@ -0,0 +1,280 @@
+package org.code;
+
+import java.io.DataInput; // Punkt kontrolny
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*; // Struktury danych
+
+// Silnik symulacji zdarzeniowej - zamiast wątków i Thread.sleep mamy wirtualny zegar i kolejkę priorytetową zdarzeń.
+// Korzysta z tych samych obiektów Stacja / Trasa / Wyciag / Narciarz co symulacja wątkowa: wyciągi są wybudzane
+// przez ten sam Wyciag.krok() co w harmonogramie wątkowym, a narciarze używają tych samych metod wyboru celu
+// i szukania ścieżki, więc statystyki wyciągów są liczone w ten sam sposób.
+// Wszystkie czasy są w milisekundach czasu wirtualnego.
+class SymulacjaZdarzeniowa implements PlanistaWyciagow {
+
+    enum TypZdarzenia {
+        DECYZJA, // narciarz wybiera kolejny cel (po odpoczynku lub krótkiej pauzie)
+        POCZATEK_ZJAZDU, // narciarz rusza trasą w dół (po krótkiej chwili na stacji)
+        KONIEC_ZJAZDU, // narciarz dojechał trasą do stacji docelowej
+        WYCIAG // wybudzenie wyciągu (wsiadanie, przybycie grupy na górę, początek/koniec serwisu)
+    }
+
+    static class Zdarzenie implements Comparable<Zdarzenie> {
+        final long czas;
+        final long numer; // Kolejność wstawienia - rozstrzyga remisy, żeby przebieg był powtarzalny
+        final TypZdarzenia typ;
+        final Narciarz narciarz;
+        final Wyciag wyciag;
+
+        Zdarzenie(long czas, long numer, TypZdarzenia typ, Narciarz narciarz, Wyciag wyciag) {
+            this.czas = czas;
+            this.numer = numer;
+            this.typ = typ;
+            this.narciarz = narciarz;
+            this.wyciag = wyciag;
+        }
+
+        @Override
+        public int compareTo(Zdarzenie o) {
+            int c = Long.compare(czas, o.czas);
+            return c != 0 ? c : Long.compare(numer, o.numer);
+        }
+    }
+
+    // Stan podróży narciarza, który w wersji wątkowej jest trzymany w zmiennych lokalnych metody run()
+    private static class Podroz {
+        Wyciag[] sciezka = TablicaTrasowania.BRAK_SCIEZKI; // Wyciągi do przejechania
+        int krok; // Indeks następnego wyciągu na ścieżce
+        Stacja cel;
+        Trasa zjazd;
+    }
+
+    private final List<Wyciag> wyciagi;
+    private final List<Narciarz> narciarze;
+    private final PriorityQueue<Zdarzenie> kolejka = new PriorityQueue<>();
+    private final Map<Narciarz, Podroz> podroze = new HashMap<>();
+    private long teraz = 0; // Wirtualny zegar
+    private long numerZdarzenia = 0;
+    private long liczbaZdarzen = 0; // Liczba obsłużonych zdarzeń (statystyka)
+    private boolean rozpoczeta = false; // Zdarzenia startowe już zaplanowane (albo stan wczytany z punktu kontrolnego)
+
+    public SymulacjaZdarzeniowa(List<Wyciag> wyciagi, List<Narciarz> narciarze) {
+        this.wyciagi = wyciagi;
+        this.narciarze = narciarze;
+    }
+
+    @Override
+    public long teraz() {
+        return teraz;
+    }
+
+    public long getLiczbaZdarzen() {
+        return liczbaZdarzen;
+    }
+
+    private void zaplanuj(long czas, TypZdarzenia typ, Narciarz nar, Wyciag w) {
+        kolejka.add(new Zdarzenie(czas, numerZdarzenia++, typ, nar, w));
+    }
+
+    // Zdarzenia startowe - wyciągi ruszają w chwili 0, narciarze od razu wybierają cel
+    private void start() {
+        rozpoczeta = true;
+        for (Wyciag w : wyciagi) {
+            w.start(this);
+        }
+        for (Narciarz nar : narciarze) {
+            podroze.put(nar, new Podroz());
+            zaplanuj(0, TypZdarzenia.DECYZJA, nar, null);
+        }
+    }
+
+    // Uruchomienie (lub kontynuacja po wczytaniu stanu) symulacji do podanego czasu wirtualnego (ms)
+    public void uruchom(long koniec) {
+        if (!rozpoczeta) start();
+
+        while (!kolejka.isEmpty() && kolejka.peek().czas <= koniec) {
+            Zdarzenie z = kolejka.poll();
+            teraz = z.czas; // Przesunięcie zegara od razu do kolejnego zdarzenia
+            liczbaZdarzen++;
+            switch (z.typ) {
+                case DECYZJA -> decyzja(z.narciarz);
+                case POCZATEK_ZJAZDU -> poczatekZjazdu(z.narciarz);
+                case KONIEC_ZJAZDU -> koniecZjazdu(z.narciarz);
+                case WYCIAG -> wybudzWyciag(z.wyciag, z.czas);
+            }
+        }
+        teraz = koniec;
+    }
+
+    // Stan silnika do punktu kontrolnego: zegar, kolejka zdarzeń (z numerami - remisy rozstrzygają się tak samo),
+    // podróże narciarzy i narciarze czekający na bramce wyciągu (koniec serwisu). Obiekty modelu są zapisywane jako indeksy
+    void zapiszStan(DataOutput out) throws IOException {
+        out.writeLong(teraz);
+        out.writeLong(numerZdarzenia);
+        out.writeLong(liczbaZdarzen);
+        out.writeInt(kolejka.size());
+        for (Zdarzenie z : kolejka) {
+            out.writeLong(z.czas);
+            out.writeLong(z.numer);
+            out.writeByte(z.typ.ordinal());
+            out.writeInt(z.narciarz == null ? 0 : z.narciarz.id);
+            out.writeInt(z.wyciag == null ? -1 : z.wyciag.indeks);
+        }
+        for (Narciarz nar : narciarze) {
+            Podroz p = podroze.get(nar);
+            out.writeShort(p.sciezka.length);
+            for (Wyciag w : p.sciezka) {
+                out.writeInt(w.indeks);
+            }
+            out.writeShort(p.krok);
+            out.writeInt(p.cel == null ? -1 : p.cel.indeks);
+            out.writeInt(p.zjazd == null ? -1 : p.zjazd.indeks);
+        }
+        for (Wyciag w : wyciagi) {
+            List<Narciarz> czekajacy = w.bramka.czekajacy();
+            out.writeInt(czekajacy.size());
+            for (Narciarz nar : czekajacy) {
+                out.writeInt(nar.id);
+            }
+        }
+    }
+
+    // Wczytanie stanu zamiast zdarzeń startowych - wyciągi i narciarze muszą być już przywróceni
+    void wczytajStan(DataInput in, List<Stacja> stacje, List<Trasa> trasy) throws IOException {
+        rozpoczeta = true;
+        teraz = in.readLong();
+        numerZdarzenia = in.readLong();
+        liczbaZdarzen = in.readLong();
+        TypZdarzenia[] typy = TypZdarzenia.values();
+        int zdarzen = in.readInt();
+        for (int i = 0; i < zdarzen; i++) {
+            long czas = in.readLong();
+            long numer = in.readLong();
+            TypZdarzenia typ = typy[in.readByte()];
+            int narciarz = in.readInt();
+            int wyciag = in.readInt();
+            kolejka.add(new Zdarzenie(czas, numer, typ, narciarz == 0 ? null : narciarze.get(narciarz - 1),
+                    wyciag < 0 ? null : wyciagi.get(wyciag)));
+        }
+        for (Narciarz nar : narciarze) {
+            Podroz p = new Podroz();
+            int dlugosc = in.readUnsignedShort();
+            if (dlugosc > 0) {
+                p.sciezka = new Wyciag[dlugosc];
+                for (int i = 0; i < dlugosc; i++) {
+                    p.sciezka[i] = wyciagi.get(in.readInt());
+                }
+            }
+            p.krok = in.readUnsignedShort();
+            int cel = in.readInt();
+            int zjazd = in.readInt();
+            p.cel = cel < 0 ? null : stacje.get(cel);
+            p.zjazd = zjazd < 0 ? null : trasy.get(zjazd);
+            podroze.put(nar, p);
+        }
+        for (Wyciag w : wyciagi) {
+            List<Narciarz> czekajacy = new ArrayList<>();
+            int liczba = in.readInt();
+            for (int i = 0; i < liczba; i++) {
+                czekajacy.add(narciarze.get(in.readInt() - 1));
+            }
+            w.bramka.przywroc(w.jestDostepny(), czekajacy);
+        }
+    }
+
+    // Odpowiednik jednej iteracji pętli Narciarz.run()
+    private void decyzja(Narciarz nar) {
+        Stacja cel = nar.wybierzLosowaStacjeDocelowa();
+        if (cel == null) {
+            zaplanuj(teraz + 50, TypZdarzenia.DECYZJA, nar, null);
+            return;
+        }
+        Podroz p = podroze.get(nar);
+        p.cel = cel;
+
+        if (cel.getWysokosc() > nar.aktualnaStacja.getWysokosc()) {
+            Wyciag[] sciezka = nar.znajdzSciezkeWyciagow(nar.aktualnaStacja, cel);
+            if (sciezka.length == 0) {
+                zaplanuj(teraz + 100, TypZdarzenia.DECYZJA, nar, null);
+                return;
+            }
+            p.sciezka = sciezka;
+            p.krok = 0;
+            nastepnyWyciag(nar);
+        } else if (cel.getWysokosc() < nar.aktualnaStacja.getWysokosc()) {
+            nar.ustawStatus(Status.AT_STATION, nar.aktualnaStacja.indeks, teraz); // Chwilowa przerwa na stacji, tak jak w wersji wątkowej
+            zaplanuj(teraz + 20, TypZdarzenia.POCZATEK_ZJAZDU, nar, null);
+        } else {
+            zaplanuj(teraz + 50, TypZdarzenia.DECYZJA, nar, null);
+        }
+    }
+
+    // Narciarz ustawia się w kolejce do następnego wyciągu na ścieżce albo kończy podróż i odpoczywa
+    private void nastepnyWyciag(Narciarz nar) {
+        Podroz p = podroze.get(nar);
+        if (p.krok >= p.sciezka.length) {
+            odpoczynek(nar);
+            return;
+        }
+        Wyciag w = nar.wybierzWyciag(p.sciezka[p.krok]);
+        if (!nar.podejdzDoWyciagu(w, teraz)) { // Pełna kolejka - inny cel ze stacji od razu albo po przerwie
+            zaplanuj(teraz + nar.przerwaPoOdrzuceniu(), TypZdarzenia.DECYZJA, nar, null);
+            return;
+        }
+        nar.ustawStatus(Status.WAITING, nar.aktualnaStacja.indeks, teraz);
+        if (w.bramka.wejdz(nar)) { // Przy zamkniętej bramce czeka przed wyciągiem aż skończy się serwis
+            w.dolaczDoKolejki(nar);
+        }
+    }
+
+    private void odpoczynek(Narciarz nar) {
+        // Odpoczynek narciarza między przejazdami (1-3) sekundy
+        zaplanuj(teraz + 1000 + nar.random.nextInt(2000), TypZdarzenia.DECYZJA, nar, null);
+    }
+
+    private void poczatekZjazdu(Narciarz nar) {
+        Podroz p = podroze.get(nar);
+        p.zjazd = nar.znajdzTraseZjazdu(nar.aktualnaStacja, p.cel);
+        nar.ruszyl(teraz);
+        nar.rozpocznijZjazd(p.zjazd, teraz);
+        zaplanuj(teraz + p.zjazd.duration * 1000L, TypZdarzenia.KONIEC_ZJAZDU, nar, null);
+    }
+
+    private void koniecZjazdu(Narciarz nar) {
+        Podroz p = podroze.get(nar);
+        nar.zakonczZjazd(p.zjazd, p.cel, teraz);
+        odpoczynek(nar);
+    }
+
+    @Override
+    public void zaplanuj(Wyciag w, long czas) {
+        // Tak jak w harmonogramie wątkowym trzymamy tylko najwcześniejsze wybudzenie wyciągu
+        if (czas == Long.MAX_VALUE || czas >= w.zaplanowanyNa) return;
+        w.zaplanowanyNa = czas;
+        zaplanuj(czas, TypZdarzenia.WYCIAG, null, w);
+    }
+
+    private void wybudzWyciag(Wyciag w, long czas) {
+        if (w.zaplanowanyNa != czas) return; // Nieaktualne wybudzenie
+        w.zaplanowanyNa = Long.MAX_VALUE;
+        w.krok();
+    }
+
+    @Override
+    public void dojechal(Narciarz nar, Wyciag w) {
+        Podroz p = podroze.get(nar);
+        nar.aktualnaStacja = w.trasa.stacjaGorna;
+        p.krok++;
+        nastepnyWyciag(nar);
+    }
+
+    @Override
+    public void serwisRozpoczety(Wyciag w) {
+        // Bez wypisywania - przy symulacji całego dnia byłyby to setki linii
+    }
+
+    @Override
+    public void serwisZakonczony(Wyciag w) {
+        // Czekających na serwis wpuszcza do kolejki bramka wyciągu
+    }
+}
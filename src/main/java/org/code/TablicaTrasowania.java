@@ -0,0 +1,318 @@
+package org.code;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Tablica ścieżek wyciągów dla każdej pary stacji (od, do), liczona z grafu wyciągów zamiast BFS przy każdym wjeździe.
+// Każdy wiersz (stacja początkowa) to niezmienna tablica ścieżek i lista stacji osiągalnych - narciarz tylko je odczytuje,
+// bez alokacji. Wiersz jest liczony przy pierwszym użyciu, więc budowa tablicy dla tysięcy stacji jest liniowa,
+// a pamięć zajmują tylko stacje, na których ktoś faktycznie wybiera cel.
+// Gdy wyciąg zmienia dostępność (serwis planowany / zakończony), unieważniane są tylko wiersze, których to dotyczy:
+// - wyciąg niedostępny: wiersze, których drzewo BFS używało tego wyciągu,
+// - wyciąg znów dostępny: wiersze, z których da się dojechać do jego dolnej stacji.
+// W trybie "kolejki" ścieżki to najkrótszy przewidywany czas dojazdu (Dijkstra), a wagą wyciągu jest czas oczekiwania
+// w kolejce i wjazdu (Wyciag.przewidywanyCzasMs). Wagi są migawką odświeżaną co okresWag ms - wtedy unieważniane są
+// wszystkie wiersze, więc każdy wiersz liczy się najwyżej raz na okres, a narciarz dalej tylko odczytuje gotową ścieżkę.
+// Między odświeżeniami przed samym wejściem do kolejki narciarz wybiera najmniej obłożony z równoległych wyciągów
+// (ta sama stacja dolna i górna) według bieżących kolejek - inaczej wszyscy z jednego okresu staliby w tej samej.
+class TablicaTrasowania {
+    static final Wyciag[] BRAK_SCIEZKI = new Wyciag[0];
+
+    // Wiersz tablicy - ścieżki do wszystkich stacji, stacje osiągalne (w kolejności BFS) i wyciągi użyte w drzewie BFS
+    private static final class Wiersz {
+        final Wyciag[][] sciezki;
+        final Stacja[] osiagalne;
+        final BitSet uzyte;
+
+        Wiersz(Wyciag[][] sciezki, Stacja[] osiagalne, BitSet uzyte) {
+            this.sciezki = sciezki;
+            this.osiagalne = osiagalne;
+            this.uzyte = uzyte;
+        }
+    }
+
+    private final List<Stacja> stacje;
+    private final Wyciag[][] wyjazdy; // Wyciągi zaczynające się w danej stacji (w kolejności z konfiguracji)
+    private final AtomicReferenceArray<Wiersz> wiersze; // null - wiersz do policzenia przy następnym odczycie
+    private final List<Wyciag> wyciagi;
+    private final Wyciag[][] rownolegle; // Wyciągi z tej samej stacji dolnej do tej samej górnej (z danym włącznie)
+    private long okresWag = 0; // Co ile ms odświeżać wagi (0 - bez wag, najmniej przesiadek)
+    private volatile long nastepneOdswiezenie = Long.MAX_VALUE; // Bez wag - nigdy
+    private long[] wagi; // Przewidywany czas przejazdu wyciągiem (ms) z ostatniego odświeżenia, pod monitorem tablicy
+
+    public TablicaTrasowania(List<Stacja> stacje, List<Wyciag> wyciagi) {
+        this.stacje = stacje;
+        int n = stacje.size();
+        for(int i = 0; i < n; i++) {
+            stacje.get(i).indeks = i;
+        }
+        List<List<Wyciag>> wyjazdyLista = new ArrayList<>();
+        for(int i = 0; i < n; i++) {
+            wyjazdyLista.add(new ArrayList<>());
+        }
+        for(int i = 0; i < wyciagi.size(); i++) {
+            Wyciag w = wyciagi.get(i);
+            w.indeks = i;
+            w.tablicaTrasowania = this;
+            wyjazdyLista.get(w.trasa.stacjaDolna.indeks).add(w);
+        }
+        wyjazdy = new Wyciag[n][];
+        for(int i = 0; i < n; i++) {
+            wyjazdy[i] = wyjazdyLista.get(i).toArray(new Wyciag[0]);
+        }
+        wiersze = new AtomicReferenceArray<>(n);
+        this.wyciagi = wyciagi;
+        rownolegle = new Wyciag[wyciagi.size()][];
+        for(Wyciag[] zeStacji : wyjazdy) {
+            for(Wyciag w : zeStacji) {
+                rownolegle[w.indeks] = Arrays.stream(zeStacji)
+                        .filter(inny -> inny.trasa.stacjaGorna == w.trasa.stacjaGorna)
+                        .toArray(Wyciag[]::new);
+            }
+        }
+    }
+
+    // Tryb "kolejki" - ścieżki według przewidywanego czasu z wagami odświeżanymi co okresMs
+    public synchronized void wlaczWagiKolejek(long okresMs) {
+        okresWag = okresMs;
+        nastepneOdswiezenie = Long.MIN_VALUE;
+    }
+
+    // Odświeżenie wag, jeśli minął okres - wołane przy wyborze celu, więc koszt to zwykle jeden odczyt volatile.
+    // Odświeżenia wypadają na wielokrotnościach okresu, dzięki czemu przebieg wznowiony z punktu kontrolnego
+    // odświeża wagi w tych samych chwilach co przebieg ciągły
+    public void odswiez(long teraz) {
+        if(teraz < nastepneOdswiezenie) return;
+        synchronized(this) {
+            if(teraz < nastepneOdswiezenie) return;
+            long[] nowe = new long[wyciagi.size()];
+            for(int i = 0; i < nowe.length; i++) {
+                nowe[i] = wyciagi.get(i).przewidywanyCzasMs();
+            }
+            wagi = nowe;
+            for(int i = 0; i < wiersze.length(); i++) {
+                wiersze.set(i, null);
+            }
+            nastepneOdswiezenie = Math.floorDiv(teraz, okresWag) * okresWag + okresWag;
+        }
+    }
+
+    // Wagi z ostatniego odświeżenia i termin następnego - do punktu kontrolnego (wiersze liczą się od nowa z wag)
+    synchronized void zapiszStan(DataOutput out) throws IOException {
+        out.writeLong(nastepneOdswiezenie);
+        out.writeInt(wagi == null ? -1 : wagi.length);
+        if(wagi != null) {
+            for(long waga : wagi) {
+                out.writeLong(waga);
+            }
+        }
+    }
+
+    // Przy wznowieniu z innym trybem trasowania wagi z pliku są pomijane
+    synchronized void wczytajStan(DataInput in) throws IOException {
+        long nastepne = in.readLong();
+        int liczba = in.readInt();
+        long[] zapisane = liczba < 0 ? null : new long[liczba];
+        for(int i = 0; i < liczba; i++) {
+            zapisane[i] = in.readLong();
+        }
+        if(okresWag != 0) {
+            wagi = zapisane;
+            nastepneOdswiezenie = zapisane == null ? Long.MIN_VALUE : nastepne;
+        }
+        for(int i = 0; i < wiersze.length(); i++) {
+            wiersze.set(i, null);
+        }
+    }
+
+    // Wyciąg, do którego narciarz faktycznie stanie w kolejce: w trybie "kolejki" dostępny wyciąg równoległy
+    // z najkrótszym bieżącym przewidywanym czasem (przy remisie ten ze ścieżki), w pozostałych - ten ze ścieżki
+    public Wyciag wybierzRownolegly(Wyciag w) {
+        Wyciag[] kandydaci = rownolegle[w.indeks];
+        if(okresWag == 0 || kandydaci.length == 1) return w;
+        Wyciag najlepszy = w;
+        long najlepszyCzas = w.jestDostepny() ? w.przewidywanyCzasMs() : Long.MAX_VALUE;
+        for(Wyciag inny : kandydaci) {
+            if(inny == w || !inny.jestDostepny()) continue;
+            long czas = inny.przewidywanyCzasMs();
+            if(czas < najlepszyCzas) {
+                najlepszy = inny;
+                najlepszyCzas = czas;
+            }
+        }
+        return najlepszy;
+    }
+
+    // Ścieżka wyciągów ze stacji from do stacji to (pusta, gdy nie da się dojechać)
+    public Wyciag[] sciezka(Stacja from, Stacja to) {
+        return wiersz(from.indeks).sciezki[to.indeks];
+    }
+
+    // Stacje, do których da się teraz dojechać wyciągami ze stacji from (bez niej samej)
+    public Stacja[] osiagalne(Stacja from) {
+        return wiersz(from.indeks).osiagalne;
+    }
+
+    // Wywoływane przez wyciąg przy zmianie dostępności (oczekiwanie na serwis / koniec serwisu)
+    public synchronized void wyciagZmienilStan(Wyciag w) {
+        int dolna = w.trasa.stacjaDolna.indeks;
+        boolean dostepny = w.jestDostepny();
+        for(int i = 0; i < wiersze.length(); i++) {
+            Wiersz wiersz = wiersze.get(i);
+            if(wiersz == null) continue; // I tak zostanie policzony od nowa
+            boolean dotyczy = dostepny
+                    ? i == dolna || wiersz.sciezki[dolna].length > 0
+                    : wiersz.uzyte.get(w.indeks);
+            if(dotyczy) {
+                wiersze.set(i, null);
+            }
+        }
+    }
+
+    private Wiersz wiersz(int od) {
+        Wiersz wiersz = wiersze.get(od);
+        return wiersz != null ? wiersz : policzWiersz(od);
+    }
+
+    // Pod monitorem tablicy - ten sam wiersz nie liczy się dwa razy, a unieważnienie nie wyprzedzi zapisu starego wyniku
+    private synchronized Wiersz policzWiersz(int od) {
+        Wiersz wiersz = wiersze.get(od);
+        if(wiersz == null) {
+            wiersz = wagi == null ? przeliczWiersz(od) : przeliczWierszWagi(od);
+            wiersze.set(od, wiersz);
+        }
+        return wiersz;
+    }
+
+    // BFS z jednej stacji po dostępnych wyciągach - ta sama kolejność przeglądania co wcześniej w Narciarz
+    private Wiersz przeliczWiersz(int od) {
+        int n = stacje.size();
+        Wyciag[] poprzedni = new Wyciag[n]; // Wyciąg, którym dotarliśmy do stacji
+        boolean[] odwiedzone = new boolean[n];
+        int[] kolejka = new int[n];
+        int glowa = 0, ogon = 0;
+        kolejka[ogon++] = od;
+        odwiedzone[od] = true;
+        BitSet uzyte = new BitSet();
+
+        while(glowa < ogon) {
+            int cur = kolejka[glowa++];
+            for(Wyciag w : wyjazdy[cur]) {
+                // Pomijamy wyciągi w serwisie
+                if(!w.jestDostepny()) continue;
+                int next = w.trasa.stacjaGorna.indeks;
+                if(!odwiedzone[next]) {
+                    odwiedzone[next] = true;
+                    poprzedni[next] = w;
+                    uzyte.set(w.indeks);
+                    kolejka[ogon++] = next;
+                }
+            }
+        }
+
+        // Odtworzenie ścieżek od stacji docelowych do początkowej - tylko dla stacji odwiedzonych przez BFS
+        Wyciag[][] sciezki = new Wyciag[n][];
+        Arrays.fill(sciezki, BRAK_SCIEZKI);
+        Stacja[] osiagalne = new Stacja[ogon - 1];
+        for(int k = 1; k < ogon; k++) {
+            int cel = kolejka[k];
+            int dlugosc = 0;
+            for(int cur = cel; cur != od; cur = poprzedni[cur].trasa.stacjaDolna.indeks) {
+                dlugosc++;
+            }
+            Wyciag[] sciezka = new Wyciag[dlugosc];
+            for(int cur = cel; cur != od; cur = poprzedni[cur].trasa.stacjaDolna.indeks) {
+                sciezka[--dlugosc] = poprzedni[cur];
+            }
+            sciezki[cel] = sciezka;
+            osiagalne[k - 1] = stacje.get(cel);
+        }
+        return new Wiersz(sciezki, osiagalne, uzyte);
+    }
+
+    // Dijkstra z jednej stacji po dostępnych wyciągach z wagami z ostatniego odświeżenia. Kopiec trzyma klucze
+    // (odległość << 24 | stacja) jako long - bez obiektów na każdą krawędź, a remisy rozstrzyga numer stacji
+    private Wiersz przeliczWierszWagi(int od) {
+        int n = stacje.size();
+        long[] odleglosc = new long[n];
+        Arrays.fill(odleglosc, Long.MAX_VALUE);
+        Wyciag[] poprzedni = new Wyciag[n];
+        boolean[] odwiedzone = new boolean[n];
+        int[] kolejnosc = new int[n]; // Stacje w kolejności ustalenia odległości
+        int ustalone = 0;
+        long[] kopiec = new long[wyciagi.size() + 1];
+        int rozmiar = 0;
+        odleglosc[od] = 0;
+        kopiec[rozmiar++] = od;
+
+        while(rozmiar > 0) {
+            long klucz = kopiec[0];
+            kopiec[0] = kopiec[--rozmiar];
+            przesunWDol(kopiec, rozmiar);
+            int cur = (int) (klucz & 0xFFFFFF);
+            if(odwiedzone[cur]) continue; // Nieaktualny wpis
+            odwiedzone[cur] = true;
+            kolejnosc[ustalone++] = cur;
+            for(Wyciag w : wyjazdy[cur]) {
+                if(!w.jestDostepny()) continue;
+                int next = w.trasa.stacjaGorna.indeks;
+                long nowa = odleglosc[cur] + wagi[w.indeks];
+                if(!odwiedzone[next] && nowa < odleglosc[next]) {
+                    odleglosc[next] = nowa;
+                    poprzedni[next] = w;
+                    kopiec[rozmiar] = (nowa << 24) | next;
+                    przesunWGore(kopiec, rozmiar++);
+                }
+            }
+        }
+
+        BitSet uzyte = new BitSet();
+        Wyciag[][] sciezki = new Wyciag[n][];
+        Arrays.fill(sciezki, BRAK_SCIEZKI);
+        Stacja[] osiagalne = new Stacja[ustalone - 1];
+        for(int k = 1; k < ustalone; k++) {
+            int cel = kolejnosc[k];
+            uzyte.set(poprzedni[cel].indeks);
+            int dlugosc = 0;
+            for(int cur = cel; cur != od; cur = poprzedni[cur].trasa.stacjaDolna.indeks) {
+                dlugosc++;
+            }
+            Wyciag[] sciezka = new Wyciag[dlugosc];
+            for(int cur = cel; cur != od; cur = poprzedni[cur].trasa.stacjaDolna.indeks) {
+                sciezka[--dlugosc] = poprzedni[cur];
+            }
+            sciezki[cel] = sciezka;
+            osiagalne[k - 1] = stacje.get(cel);
+        }
+        return new Wiersz(sciezki, osiagalne, uzyte);
+    }
+
+    private static void przesunWGore(long[] kopiec, int i) {
+        long klucz = kopiec[i];
+        while(i > 0 && kopiec[(i - 1) / 2] > klucz) {
+            kopiec[i] = kopiec[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        kopiec[i] = klucz;
+    }
+
+    private static void przesunWDol(long[] kopiec, int rozmiar) {
+        if(rozmiar == 0) return;
+        long klucz = kopiec[0];
+        int i = 0;
+        while(2 * i + 1 < rozmiar) {
+            int dziecko = 2 * i + 1;
+            if(dziecko + 1 < rozmiar && kopiec[dziecko + 1] < kopiec[dziecko]) dziecko++;
+            if(kopiec[dziecko] >= klucz) break;
+            kopiec[i] = kopiec[dziecko];
+            i = dziecko;
+        }
+        kopiec[i] = klucz;
+    }
+}
@@ -0,0 +1,185 @@
+package org.code;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Tryb wsadowy (bez Swing i bez pętli TUI) - do uruchamiania w CI i na serwerach.
+// Przykład: java -cp ski-resort-simulation.jar org.code.TrybWsadowy --config stok.json --narciarze 500
+//           --czas 28800 --seed 42 --silnik events --raport wynik.csv
+public class TrybWsadowy {
+
+    private static final String UZYCIE = """
+            Użycie: TrybWsadowy [opcje]
+              --config <plik>      plik konfiguracji (ścieżka lub classpath:zasob.json)
+              --narciarze <N>      liczba narciarzy (domyślnie z konfiguracji)
+              --czas <s>           czas symulacji w sekundach czasu stoku (domyślnie z konfiguracji)
+              --seed <liczba>      ziarno losowania narciarzy
+              --silnik <tryb>      threads (czas rzeczywisty) lub events (wirtualny zegar, domyślnie)
+              --raport <plik>      plik raportu .json lub .csv (domyślnie JSON na standardowe wyjście)
+              --slad <plik>        zapis binarnego śladu zdarzeń (do odtworzenia przez OdtwarzaczSladu)
+              --wznow <plik>       kontynuacja od punktu kontrolnego (--czas liczy się od chwili zapisu)
+              --zapisz-stan <plik> zapis punktu kontrolnego na koniec symulacji (tylko silnik events)
+              --http <port>        serwer HTTP na localhost z /metrics, /stan i /zdarzenia (tylko silnik threads,
+                                   0 - wolny port)
+              --porownaj-serwisy   dodatkowe przebiegi bez serwisów, z serwisami niezależnymi i planowanymi
+                                   (silnik events, stałe ziarno) - strata przejazdów każdego trybu w raporcie
+            """;
+
+    public static void main(String[] args) throws Exception {
+        String sciezkaConfigu = SkiResortSimulation.domyslnaKonfiguracja();
+        String sciezkaRaportu = null;
+        Integer narciarzy = null;
+        Integer czas = null;
+        Long seed = null;
+        String slad = null;
+        String wznowienie = null;
+        String punktKontrolny = null;
+        String silnik = "events";
+        boolean porownajSerwisy = false;
+        Integer portHttp = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--config" -> sciezkaConfigu = args[++i];
+                    case "--narciarze" -> narciarzy = Integer.parseInt(args[++i]);
+                    case "--czas" -> czas = Integer.parseInt(args[++i]);
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--silnik" -> silnik = args[++i];
+                    case "--raport" -> sciezkaRaportu = args[++i];
+                    case "--slad" -> slad = args[++i];
+                    case "--wznow" -> wznowienie = args[++i];
+                    case "--zapisz-stan" -> punktKontrolny = args[++i];
+                    case "--http" -> {
+                        portHttp = Integer.parseInt(args[++i]);
+                        if (portHttp < 0 || portHttp > 65535) throw new IllegalArgumentException("Port spoza [0, 65535]: " + portHttp);
+                    }
+                    case "--porownaj-serwisy" -> porownajSerwisy = true;
+                    case "--help", "-h" -> {
+                        System.out.print(UZYCIE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Nieznana opcja: " + args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            String powod = e instanceof ArrayIndexOutOfBoundsException ? "Brak wartości opcji" : e.getMessage();
+            System.err.println(powod);
+            System.err.print(UZYCIE);
+            System.exit(2);
+        }
+
+        SkiResortSimulation.Config cfg;
+        try {
+            cfg = SkiResortSimulation.wczytajKonfiguracje(sciezkaConfigu);
+        } catch (BladKonfiguracji e) {
+            System.err.println("Błąd konfiguracji: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (narciarzy != null) cfg.liczbaNarciarzy = narciarzy;
+        if (czas != null) cfg.czasSymulacji = czas;
+        if (seed != null) cfg.seed = seed;
+        if (slad != null) cfg.slad = slad;
+        if (wznowienie != null) cfg.wznowienie = wznowienie;
+        if (punktKontrolny != null) cfg.punktKontrolny = punktKontrolny;
+        if (portHttp != null) cfg.portHttp = portHttp;
+        cfg.silnik = silnik;
+        if (porownajSerwisy && (!"events".equalsIgnoreCase(cfg.silnik) || cfg.seed == null)) {
+            System.err.println("--porownaj-serwisy wymaga silnika events i ziarna (--seed lub seed w konfiguracji)");
+            System.exit(2);
+        }
+        SkiResortSimulation symulacja = new SkiResortSimulation(cfg);
+
+        // Komunikaty symulacji (start, serwisy) idą na stderr, żeby na stdout był tylko raport
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+        long start = System.nanoTime();
+        if ("events".equalsIgnoreCase(cfg.silnik)) {
+            symulacja.uruchomZdarzeniowo();
+        } else {
+            // Czas rzeczywisty - symulacja trwa naprawdę cfg.czasSymulacji sekund
+            symulacja.uruchomWatki();
+            Thread.sleep(cfg.czasSymulacji * 1000L);
+            symulacja.zatrzymajWatki();
+        }
+        long czasWykonaniaMs = (System.nanoTime() - start) / 1_000_000;
+        System.setOut(stdout);
+
+        RaportSymulacji raport = RaportSymulacji.zbierz(symulacja.stacje, symulacja.wyciagi, symulacja.trasy);
+        raport.silnik = cfg.silnik;
+        raport.liczbaNarciarzy = cfg.liczbaNarciarzy;
+        raport.czasSymulacjiS = cfg.czasSymulacji;
+        raport.czasWykonaniaMs = czasWykonaniaMs;
+        raport.seed = cfg.seed;
+        raport.serwisy = cfg.serwisy;
+        raport.czasOdcieciaStacjiS = symulacja.planerSerwisow.getCzasOdciecia(symulacja.teraz()) / 1000.0;
+        if (porownajSerwisy) {
+            raport.porownanieSerwisow = porownajSerwisy(sciezkaConfigu, cfg);
+        }
+
+        if (sciezkaRaportu == null) {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            raport.zapiszJson(out);
+            out.flush();
+        } else {
+            try (Writer out = new BufferedWriter(new FileWriter(sciezkaRaportu, StandardCharsets.UTF_8))) {
+                if (sciezkaRaportu.toLowerCase().endsWith(".csv")) {
+                    raport.zapiszCsv(out);
+                } else {
+                    raport.zapiszJson(out);
+                }
+            }
+            System.out.println("Raport zapisany: " + sciezkaRaportu);
+        }
+    }
+
+    // Te same losowania w trzech trybach: bez serwisów (punkt odniesienia), niezależne i planowane.
+    // Każdy przebieg ma świeży model z tej samej konfiguracji (z nadpisanymi opcjami wiersza poleceń)
+    private static List<RaportSymulacji.SerwisyRaport> porownajSerwisy(String sciezkaConfigu, SkiResortSimulation.Config cfg)
+            throws IOException {
+        List<RaportSymulacji.SerwisyRaport> wyniki = new ArrayList<>();
+        for (String tryb : new String[]{"brak", "niezalezne", "planowane"}) {
+            SkiResortSimulation.Config c = SkiResortSimulation.wczytajKonfiguracje(sciezkaConfigu);
+            c.liczbaNarciarzy = cfg.liczbaNarciarzy;
+            c.czasSymulacji = cfg.czasSymulacji;
+            c.seed = cfg.seed;
+            c.wznowienie = cfg.wznowienie;
+            c.silnik = "events";
+            if ("brak".equals(tryb)) {
+                for (SkiResortSimulation.LiftCfg lc : c.wyciagi) {
+                    lc.maintenanceTime = Integer.MAX_VALUE; // Termin serwisu poza czasem symulacji
+                }
+            } else {
+                c.serwisy = tryb;
+            }
+            SkiResortSimulation s = new SkiResortSimulation(c);
+            PrintStream stdout = System.out;
+            System.setOut(System.err);
+            s.uruchomZdarzeniowo();
+            System.setOut(stdout);
+
+            RaportSymulacji.SerwisyRaport r = new RaportSymulacji.SerwisyRaport();
+            r.serwisy = tryb;
+            for (Wyciag w : s.wyciagi) {
+                r.przejazdy += w.getPrzejazdy();
+                r.liczbaSerwisow += w.getLiczbaSerwisow();
+                r.utraconeMiejsca += w.metryki.getUtraconeMiejsca();
+            }
+            r.czasOdcieciaStacjiS = s.planerSerwisow.getCzasOdciecia(s.teraz()) / 1000.0;
+            wyniki.add(r);
+        }
+        long bezSerwisow = wyniki.get(0).przejazdy;
+        System.err.println("Serwisy       przejazdy   strata    strata %  serwisy  utracone miejsca  odcięcie stacji [s]");
+        for (RaportSymulacji.SerwisyRaport r : wyniki) {
+            r.strataPrzejazdow = bezSerwisow - r.przejazdy;
+            r.strataProcent = bezSerwisow == 0 ? 0.0 : 100.0 * r.strataPrzejazdow / bezSerwisow;
+            System.err.printf(Locale.ROOT, "%-12s %10d %8d %10.2f %8d %17d %20.0f%n", r.serwisy, r.przejazdy,
+                    r.strataPrzejazdow, r.strataProcent, r.liczbaSerwisow, r.utraconeMiejsca, r.czasOdcieciaStacjiS);
+        }
+        return wyniki;
+    }
+}